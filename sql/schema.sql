@@ -4,11 +4,16 @@ CREATE DATABASE IF NOT EXISTS dormitory_db CHARACTER SET utf8mb4 COLLATE utf8mb4
 USE dormitory_db;
 
 -- Drop tables if they exist (for fresh install)
+DROP TABLE IF EXISTS application_status_events;
 DROP TABLE IF EXISTS dorm_applications;
 DROP TABLE IF EXISTS messages;
+DROP TABLE IF EXISTS buildings;
+DROP TABLE IF EXISTS building_occupancy;
 DROP TABLE IF EXISTS announcements;
 DROP TABLE IF EXISTS Student;
 DROP TABLE IF EXISTS users;
+-- The app re-runs its (idempotent) migrations against a fresh schema
+DROP TABLE IF EXISTS schema_version;
 
 -- Create users table (for admins, owners, proctors)
 CREATE TABLE users (
@@ -23,7 +28,7 @@ CREATE TABLE users (
 CREATE TABLE Student (
     id VARCHAR(50) PRIMARY KEY,
     username VARCHAR(50) NOT NULL UNIQUE,
-    password VARCHAR(100) NOT NULL,
+    password VARCHAR(255) NOT NULL,
     role ENUM('STUDENT', 'ADMIN', 'PROCTOR', 'OWNER') NOT NULL DEFAULT 'STUDENT',
     displayName VARCHAR(100),
     studentId VARCHAR(20) NOT NULL UNIQUE,
@@ -38,7 +43,8 @@ CREATE TABLE Student (
     emergencyContactName VARCHAR(100),
     emergencyContactPhone VARCHAR(20),
     transactionId VARCHAR(50),
-    assignedBuilding VARCHAR(50) DEFAULT 'unassigned'
+    assignedBuilding VARCHAR(50) DEFAULT 'unassigned',
+    updatedAt DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)
 );
 
 -- Create messages table
@@ -48,7 +54,8 @@ CREATE TABLE messages (
     toUser VARCHAR(100) NOT NULL,
     content TEXT NOT NULL,
     sentAt DATETIME NOT NULL,
-    isRead BOOLEAN DEFAULT FALSE
+    isRead BOOLEAN DEFAULT FALSE,
+    updatedAt DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)
 );
 
 -- Create dorm_applications table
@@ -67,28 +74,95 @@ CREATE TABLE dorm_applications (
     ) NOT NULL DEFAULT 'PHASE_ONE_PENDING',
     adminNote TEXT,
     submittedDate DATE NOT NULL,
-    responseHistory TEXT,
+    latestResponseStatus VARCHAR(32),
+    latestResponseAt DATETIME,
+    updatedAt DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     FOREIGN KEY (studentId) REFERENCES Student(id) ON DELETE CASCADE
 );
 
+-- Append-only status history (one row per admin response)
+CREATE TABLE application_status_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    applicationId VARCHAR(36) NOT NULL,
+    status VARCHAR(32) NOT NULL,
+    note TEXT,
+    changedAt DATETIME NOT NULL,
+    FOREIGN KEY (applicationId) REFERENCES dorm_applications(id) ON DELETE CASCADE
+);
+
 -- Create announcements table
 CREATE TABLE announcements (
     id VARCHAR(36) PRIMARY KEY,
     title VARCHAR(255) NOT NULL,
     body TEXT NOT NULL,
     createdBy VARCHAR(100) NOT NULL,
-    createdAt DATETIME NOT NULL
+    createdAt DATETIME NOT NULL,
+    updatedAt DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    deletedAt DATETIME(6) NULL
+);
+
+-- Building bed inventory (students reference buildings by name)
+CREATE TABLE buildings (
+    name VARCHAR(50) PRIMARY KEY,
+    gender ENUM('MALE', 'FEMALE') NOT NULL,
+    capacity INT NOT NULL,
+    accessibleBeds INT NOT NULL DEFAULT 0
 );
 
--- Create indexes for performance
-CREATE INDEX idx_student_studentId ON Student(studentId);
+-- Residents per building, maintained by the triggers below ('' and 'unassigned' are not buildings)
+CREATE TABLE building_occupancy (
+    building VARCHAR(50) PRIMARY KEY,
+    residents INT NOT NULL DEFAULT 0
+);
+
+DELIMITER $$
+CREATE TRIGGER trg_student_occupancy_insert AFTER INSERT ON Student FOR EACH ROW
+BEGIN
+    IF NEW.assignedBuilding IS NOT NULL AND NEW.assignedBuilding NOT IN ('', 'unassigned') THEN
+        INSERT INTO building_occupancy (building, residents) VALUES (NEW.assignedBuilding, 1)
+        ON DUPLICATE KEY UPDATE residents = residents + 1;
+    END IF;
+END$$
+
+CREATE TRIGGER trg_student_occupancy_update AFTER UPDATE ON Student FOR EACH ROW
+BEGIN
+    IF NOT (OLD.assignedBuilding <=> NEW.assignedBuilding) THEN
+        IF OLD.assignedBuilding IS NOT NULL AND OLD.assignedBuilding NOT IN ('', 'unassigned') THEN
+            UPDATE building_occupancy SET residents = residents - 1 WHERE building = OLD.assignedBuilding;
+        END IF;
+        IF NEW.assignedBuilding IS NOT NULL AND NEW.assignedBuilding NOT IN ('', 'unassigned') THEN
+            INSERT INTO building_occupancy (building, residents) VALUES (NEW.assignedBuilding, 1)
+            ON DUPLICATE KEY UPDATE residents = residents + 1;
+        END IF;
+    END IF;
+END$$
+
+CREATE TRIGGER trg_student_occupancy_delete AFTER DELETE ON Student FOR EACH ROW
+BEGIN
+    IF OLD.assignedBuilding IS NOT NULL AND OLD.assignedBuilding NOT IN ('', 'unassigned') THEN
+        UPDATE building_occupancy SET residents = residents - 1 WHERE building = OLD.assignedBuilding;
+    END IF;
+END$$
+DELIMITER ;
+
+-- Create indexes for performance (keep in sync with SchemaMigrator)
 CREATE INDEX idx_student_building ON Student(assignedBuilding);
+CREATE INDEX idx_student_gender_residency_college ON Student(gender, residency, college);
 CREATE INDEX idx_applications_studentId ON dorm_applications(studentId);
 CREATE INDEX idx_applications_status ON dorm_applications(status);
-CREATE INDEX idx_messages_fromUser ON messages(fromUser);
-CREATE INDEX idx_messages_toUser ON messages(toUser);
+CREATE INDEX idx_applications_submittedDate ON dorm_applications(submittedDate);
+CREATE INDEX idx_messages_toUser_sentAt ON messages(toUser, sentAt);
+CREATE INDEX idx_messages_fromUser_sentAt ON messages(fromUser, sentAt);
 CREATE INDEX idx_announcements_createdAt ON announcements(createdAt);
 CREATE INDEX idx_users_role ON users(role);
+CREATE INDEX idx_status_events_application_time ON application_status_events(applicationId, changedAt);
+CREATE INDEX idx_student_updatedAt ON Student(updatedAt);
+CREATE INDEX idx_applications_updatedAt ON dorm_applications(updatedAt);
+CREATE INDEX idx_messages_toUser_updatedAt ON messages(toUser, updatedAt);
+CREATE INDEX idx_messages_fromUser_updatedAt ON messages(fromUser, updatedAt);
+CREATE INDEX idx_announcements_updatedAt ON announcements(updatedAt);
+CREATE INDEX idx_messages_toUser_isRead ON messages(toUser, isRead);
+CREATE INDEX idx_messages_toUser_fromUser ON messages(toUser, fromUser, sentAt, isRead);
 
 -- Insert default admin user
 INSERT INTO users (id, username, password, full_name, role) 
@@ -1,29 +1,101 @@
 package dorm;
 
 import dorm.dao.DaoFactory;
+import dorm.dao.DatabaseConnection;
+import dorm.service.AsyncDormService;
+import dorm.service.ChangeWatcher;
 import dorm.service.DatabaseDormService;
+import dorm.service.LoginRateLimiter;
+import dorm.service.OccupancyReconciler;
+import dorm.service.ReadStateBuffer;
 import dorm.ui.controller.LoginController;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.util.Properties;
+
 
 public class App extends Application {
     
-    private DatabaseDormService service;
+    private AsyncDormService service;
+    private OccupancyReconciler reconciler;
     
     @Override
     public void init() {
         // Initialize the service with MySQL repositories
-        service = new DatabaseDormService(
+        DatabaseDormService dormService = new DatabaseDormService(
             DaoFactory.createUserRepository(),
             DaoFactory.createStudentRepository(),
             DaoFactory.createApplicationRepository(),
             DaoFactory.createAnnouncementRepository(),
-            DaoFactory.createMessageRepository()
+            DaoFactory.createMessageRepository(),
+            DaoFactory.createStatusEventRepository(),
+            DaoFactory.createBuildingRepository()
         );
+        
+        // Database work runs off the FX thread; results come back through Platform.runLater
+        Properties config = DatabaseConnection.getConfiguration();
+        int threads = 4;
+        int queueCapacity = 256;
+        try {
+            threads = Integer.parseInt(config.getProperty("async.threads", String.valueOf(threads)).trim());
+            queueCapacity = Integer.parseInt(config.getProperty("async.queueCapacity", String.valueOf(queueCapacity)).trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid async settings in db.properties, using defaults: " + e.getMessage());
+        }
+        
+        // Screens are told about new messages and announcements by a background poller
+        long watchIntervalMillis = 5_000;
+        long watchMaxBackoffMillis = 60_000;
+        try {
+            watchIntervalMillis = Long.parseLong(config.getProperty("watch.intervalSeconds", "5").trim()) * 1000;
+            watchMaxBackoffMillis = Long.parseLong(config.getProperty("watch.maxBackoffSeconds", "60").trim()) * 1000;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid watch settings in db.properties, using defaults: " + e.getMessage());
+        }
+        ChangeWatcher watcher = new ChangeWatcher(dormService, Platform::runLater, watchIntervalMillis, watchMaxBackoffMillis);
+        
+        // Read/unread checkbox toggles are coalesced and written in one batch shortly after
+        long readFlushMillis = 1_000;
+        try {
+            readFlushMillis = Long.parseLong(config.getProperty("messages.readFlushMillis", String.valueOf(readFlushMillis)).trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid messages.readFlushMillis in db.properties, using default: " + e.getMessage());
+        }
+        ReadStateBuffer readStates = new ReadStateBuffer(dormService, readFlushMillis);
+        
+        // Occupancy counters are kept by triggers; this recount only catches drift
+        long reconcileMillis = 60 * 60_000;
+        try {
+            reconcileMillis = Long.parseLong(config.getProperty("occupancy.reconcileMinutes", "60").trim()) * 60_000;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid occupancy.reconcileMinutes in db.properties, using default: " + e.getMessage());
+        }
+        reconciler = new OccupancyReconciler(dormService, reconcileMillis);
+        
+        // Login attempts per username: a short burst, then one per refill interval; repeated
+        // wrong passwords lock the name out. Throttled attempts never reach the database.
+        int loginBurst = 5;
+        long loginRefillMillis = 12_000;
+        int lockoutFailures = 10;
+        long lockoutMillis = 15 * 60_000;
+        try {
+            loginBurst = Integer.parseInt(config.getProperty("login.burst", String.valueOf(loginBurst)).trim());
+            loginRefillMillis = Long.parseLong(config.getProperty("login.refillSeconds", "12").trim()) * 1000;
+            lockoutFailures = Integer.parseInt(config.getProperty("login.lockoutFailures", String.valueOf(lockoutFailures)).trim());
+            lockoutMillis = Long.parseLong(config.getProperty("login.lockoutMinutes", "15").trim()) * 60_000;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid login settings in db.properties, using defaults: " + e.getMessage());
+        }
+        LoginRateLimiter loginLimiter = new LoginRateLimiter(loginBurst, loginRefillMillis, lockoutFailures, lockoutMillis);
+        
+        service = new AsyncDormService(dormService, Platform::runLater, threads, queueCapacity, watcher, readStates, loginLimiter);
+        watcher.start();
+        reconciler.start();
     }
     
     @Override
@@ -61,6 +133,13 @@ public class App extends Application {
         }
     }
     
+    @Override
+    public void stop() {
+        reconciler.shutdown();
+        service.shutdown();
+        DatabaseConnection.shutdown();
+    }
+    
     public static void main(String[] args) {
         launch(args);
     }
@@ -2,11 +2,19 @@ package dorm.dao;
 
 import dorm.model.Announcement;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface AnnouncementRepository {
     List<Announcement> findAll();
     void save(Announcement announcement);
     void update(Announcement announcement);
     void delete(Announcement announcement);
+    
+    //Announcements added, edited or deleted after a version (null = all live announcements)
+    ChangeSet<Announcement> findChangedSince(LocalDateTime since);
+    
+    //Time of the most recent announcement write, for cheap polling (empty when there are none)
+    Optional<LocalDateTime> findLastChangeTime();
 }
@@ -0,0 +1,65 @@
+package dorm.dao;
+
+import dorm.model.DormApplication;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//One page of applications plus the total number of rows matching the filter, and the
+//change-feed version the page was read at (see ApplicationRepository.findChangedSince)
+
+public class ApplicationPage {
+    private final List<DormApplication> items;
+    private final int totalCount;
+    private final int offset;
+    private final int limit;
+    private final LocalDateTime version;
+
+    public ApplicationPage(List<DormApplication> items, int totalCount, int offset, int limit) {
+        this(items, totalCount, offset, limit, null);
+    }
+
+    public ApplicationPage(List<DormApplication> items, int totalCount, int offset, int limit, LocalDateTime version) {
+        this.items = items;
+        this.totalCount = totalCount;
+        this.offset = offset;
+        this.limit = limit;
+        this.version = version;
+    }
+
+    public List<DormApplication> getItems() {
+        return items;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public LocalDateTime getVersion() {
+        return version;
+    }
+
+    public int getPageNumber() {
+        return offset / limit + 1;
+    }
+
+    public int getPageCount() {
+        return Math.max(1, (totalCount + limit - 1) / limit);
+    }
+
+    public boolean hasNext() {
+        return offset + items.size() < totalCount;
+    }
+
+    public boolean hasPrevious() {
+        return offset > 0;
+    }
+}
@@ -0,0 +1,174 @@
+package dorm.dao;
+
+import dorm.model.*;
+
+import java.time.LocalDate;
+
+//Filter, sort and paging spec for ApplicationRepository.findPage.
+//A null filter value means "any".
+
+public class ApplicationQuery {
+
+    public enum SortField {
+        SUBMITTED_DATE,
+        NAME,
+        STUDENT_ID,
+        STATUS
+    }
+
+    private Gender gender;
+    private Residency residency;
+    private String subcity;
+    private String woreda;
+    private College college;
+    private SponsorshipType sponsorshipType;
+    private ApplicationStatus status;
+    private LocalDate submittedFrom;      // inclusive
+    private LocalDate submittedTo;        // inclusive
+
+    private SortField sortField = SortField.SUBMITTED_DATE;
+    private boolean ascending = true;
+    private boolean assignedLast = true;   // keep ASSIGNED rows at the bottom, as the admin table always has
+
+    private int offset = 0;
+    private int limit = 100;
+
+    public Gender getGender() {
+        return gender;
+    }
+
+    public void setGender(Gender gender) {
+        this.gender = gender;
+    }
+
+    public Residency getResidency() {
+        return residency;
+    }
+
+    public void setResidency(Residency residency) {
+        this.residency = residency;
+    }
+
+    public String getSubcity() {
+        return subcity;
+    }
+
+    public void setSubcity(String subcity) {
+        this.subcity = subcity;
+    }
+
+    public String getWoreda() {
+        return woreda;
+    }
+
+    public void setWoreda(String woreda) {
+        this.woreda = woreda;
+    }
+
+    public College getCollege() {
+        return college;
+    }
+
+    public void setCollege(College college) {
+        this.college = college;
+    }
+
+    public SponsorshipType getSponsorshipType() {
+        return sponsorshipType;
+    }
+
+    public void setSponsorshipType(SponsorshipType sponsorshipType) {
+        this.sponsorshipType = sponsorshipType;
+    }
+
+    public ApplicationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ApplicationStatus status) {
+        this.status = status;
+    }
+
+    public LocalDate getSubmittedFrom() {
+        return submittedFrom;
+    }
+
+    public void setSubmittedFrom(LocalDate submittedFrom) {
+        this.submittedFrom = submittedFrom;
+    }
+
+    public LocalDate getSubmittedTo() {
+        return submittedTo;
+    }
+
+    public void setSubmittedTo(LocalDate submittedTo) {
+        this.submittedTo = submittedTo;
+    }
+
+    public SortField getSortField() {
+        return sortField;
+    }
+
+    public void setSortField(SortField sortField) {
+        this.sortField = sortField != null ? sortField : SortField.SUBMITTED_DATE;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public void setAscending(boolean ascending) {
+        this.ascending = ascending;
+    }
+
+    public boolean isAssignedLast() {
+        return assignedLast;
+    }
+
+    public void setAssignedLast(boolean assignedLast) {
+        this.assignedLast = assignedLast;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public void setOffset(int offset) {
+        this.offset = Math.max(0, offset);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = Math.max(1, limit);
+    }
+
+    //Whether an application passes the filters (not the paging), mirroring the SQL WHERE clause.
+    //Used to apply change-feed rows to an already loaded page without re-running the query.
+
+    public boolean matches(DormApplication application) {
+        Student student = application.getStudent();
+        if (gender != null && student.getGender() != gender) return false;
+        if (residency != null && student.getResidency() != residency) return false;
+        if (!textMatches(subcity, student.getSubcity())) return false;
+        if (!textMatches(woreda, student.getWoreda())) return false;
+        if (college != null && student.getCollege() != college) return false;
+        if (sponsorshipType != null && student.getSponsorshipType() != sponsorshipType) return false;
+        if (status != null && application.getStatus() != status) return false;
+
+        LocalDate submitted = application.getSubmittedDate();
+        if (submittedFrom != null && (submitted == null || submitted.isBefore(submittedFrom))) return false;
+        if (submittedTo != null && (submitted == null || submitted.isAfter(submittedTo))) return false;
+        return true;
+    }
+
+    // The columns use a case-insensitive collation
+    private static boolean textMatches(String filter, String value) {
+        if (filter == null || filter.isBlank()) {
+            return true;
+        }
+        return value != null && value.trim().equalsIgnoreCase(filter.trim());
+    }
+}
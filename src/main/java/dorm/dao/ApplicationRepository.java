@@ -1,10 +1,13 @@
 package dorm.dao;
 
+import dorm.model.ApplicationStatus;
 import dorm.model.DormApplication;
 import dorm.model.Student;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ApplicationRepository {
     
@@ -13,13 +16,36 @@ public interface ApplicationRepository {
   
     //Get all applications
     List<DormApplication> findAll();
+    
+    //Get one filtered, sorted page of applications plus the total match count
+    ApplicationPage findPage(ApplicationQuery query);
+  
+    //Number of applications matching the query's filters (paging ignored)
+    int countMatching(ApplicationQuery query);
+    
+    //Stream every application matching the query's filters, in its sort order, to action
+    //without holding them in memory; returns the number of rows visited
+    int forEachMatching(ApplicationQuery query, Consumer<DormApplication> action);
+    
+    //Counts by status, college, gender, residency and sponsorship, computed in the database
+    ApplicationStatistics findStatistics();
   
     //Save a new application
     void save(DormApplication application);
+    
+    //Insert many new applications in one JDBC batch
+    void saveAll(List<DormApplication> applications);
   
     //Update an application
     void update(DormApplication application);
+    
+    //Update many applications in one JDBC batch, each only while its stored status is still the
+    //matching entry of expectedStatuses; returns the per-row update counts (0 = changed meanwhile)
+    int[] updateAll(List<DormApplication> applications, List<ApplicationStatus> expectedStatuses);
   
     //Delete an application
     void delete(DormApplication application);
+    
+    //Applications whose row or student changed after a version (null = all applications)
+    ChangeSet<DormApplication> findChangedSince(LocalDateTime since);
 }
@@ -0,0 +1,79 @@
+package dorm.dao;
+
+import dorm.model.ApplicationStatus;
+import dorm.model.College;
+import dorm.model.Gender;
+import dorm.model.Residency;
+import dorm.model.SponsorshipType;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+//Application counts broken down by the same dimensions the admin filters offer. Students with
+//no value recorded for a dimension are not in its map; getNotRecorded works out how many.
+
+public class ApplicationStatistics {
+    private final int total;
+    private final Map<ApplicationStatus, Integer> byStatus;
+    private final Map<College, Integer> byCollege;
+    private final Map<Gender, Integer> byGender;
+    private final Map<Residency, Integer> byResidency;
+    private final Map<SponsorshipType, Integer> bySponsorship;
+    private final LocalDateTime computedAt;
+
+    public ApplicationStatistics(int total,
+                                 Map<ApplicationStatus, Integer> byStatus,
+                                 Map<College, Integer> byCollege,
+                                 Map<Gender, Integer> byGender,
+                                 Map<Residency, Integer> byResidency,
+                                 Map<SponsorshipType, Integer> bySponsorship,
+                                 LocalDateTime computedAt) {
+        this.total = total;
+        this.byStatus = Collections.unmodifiableMap(new EnumMap<>(byStatus));
+        this.byCollege = Collections.unmodifiableMap(new EnumMap<>(byCollege));
+        this.byGender = Collections.unmodifiableMap(new EnumMap<>(byGender));
+        this.byResidency = Collections.unmodifiableMap(new EnumMap<>(byResidency));
+        this.bySponsorship = Collections.unmodifiableMap(new EnumMap<>(bySponsorship));
+        this.computedAt = computedAt;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public Map<ApplicationStatus, Integer> getByStatus() {
+        return byStatus;
+    }
+
+    public Map<College, Integer> getByCollege() {
+        return byCollege;
+    }
+
+    public Map<Gender, Integer> getByGender() {
+        return byGender;
+    }
+
+    public Map<Residency, Integer> getByResidency() {
+        return byResidency;
+    }
+
+    public Map<SponsorshipType, Integer> getBySponsorship() {
+        return bySponsorship;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    //Applications with no value in one of the breakdowns (e.g. phase one not filled in)
+
+    public int getNotRecorded(Map<?, Integer> breakdown) {
+        int counted = 0;
+        for (int n : breakdown.values()) {
+            counted += n;
+        }
+        return Math.max(0, total - counted);
+    }
+}
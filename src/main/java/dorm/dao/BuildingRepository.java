@@ -0,0 +1,31 @@
+package dorm.dao;
+
+import dorm.model.Building;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface BuildingRepository {
+    
+    //Find a building by name
+    Optional<Building> findByName(String name);
+    
+    //Get the whole inventory, ordered by name
+    List<Building> findAll();
+    
+    //Add a building, or replace the gender and bed counts of an existing one
+    void save(Building building);
+    
+    //Remove a building from the inventory (students keep their assignedBuilding text)
+    void delete(Building building);
+    
+    //Residents of one building from its counter (a primary-key lookup; 0 if none)
+    int findOccupancy(String buildingName);
+    
+    //All occupancy counters, keyed by building name
+    Map<String, Integer> findOccupancy();
+    
+    //Recount residents from the Student table and fix any counter that drifted; returns how
+    //many counters were corrected. Run inside a transaction so the recount and fix are atomic.
+    int reconcileOccupancy();
+}
@@ -0,0 +1,74 @@
+package dorm.dao;
+
+import dorm.model.Announcement;
+import dorm.util.TtlCache;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+
+//Read-through cache for the announcement list, cleared on every write
+public class CachingAnnouncementRepository implements AnnouncementRepository {
+
+    private static final String ALL_KEY = "*";
+
+    private final AnnouncementRepository delegate;
+    private final TtlCache<String, List<Announcement>> cache;
+
+    public CachingAnnouncementRepository(AnnouncementRepository delegate, long ttlMillis) {
+        this.delegate = delegate;
+        this.cache = new TtlCache<>(1, ttlMillis);
+    }
+
+    @Override
+    public List<Announcement> findAll() {
+        return cache.get(ALL_KEY, key -> List.copyOf(delegate.findAll()));
+    }
+
+    @Override
+    public void save(Announcement announcement) {
+        try {
+            delegate.save(announcement);
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public void update(Announcement announcement) {
+        try {
+            delegate.update(announcement);
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public void delete(Announcement announcement) {
+        try {
+            delegate.delete(announcement);
+        } finally {
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public ChangeSet<Announcement> findChangedSince(LocalDateTime since) {
+        // Change queries must see the database as it is now, so they are never cached (nor below)
+        return delegate.findChangedSince(since);
+    }
+
+    @Override
+    public Optional<LocalDateTime> findLastChangeTime() {
+        return delegate.findLastChangeTime();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public TtlCache.Stats getCacheStats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,151 @@
+package dorm.dao;
+
+import dorm.model.ApplicationStatus;
+import dorm.model.DormApplication;
+import dorm.model.Student;
+import dorm.util.TtlCache;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+
+//Read-through cache in front of an ApplicationRepository. Paged and change-feed queries are
+//passed through: they are already bounded and their parameters rarely repeat. Callers get
+//copies of cached applications, and writes drop entries again once their transaction commits.
+public class CachingApplicationRepository implements ApplicationRepository {
+
+    private static final String ALL_KEY = "*";
+
+    private final ApplicationRepository delegate;
+    private final TtlCache<String, Optional<DormApplication>> byStudent;   // keyed by Student.id
+    private final TtlCache<String, List<DormApplication>> all;
+
+    public CachingApplicationRepository(ApplicationRepository delegate, int maxEntries, long ttlMillis) {
+        this.delegate = delegate;
+        this.byStudent = new TtlCache<>(maxEntries, ttlMillis);
+        this.all = new TtlCache<>(1, ttlMillis);
+    }
+
+    @Override
+    public Optional<DormApplication> findByStudent(Student student) {
+        // Wrapped around the caller's student, as the uncached repository does
+        return byStudent.get(student.getId(), key -> delegate.findByStudent(student)).map(app -> app.copyFor(student));
+    }
+
+    @Override
+    public List<DormApplication> findAll() {
+        List<DormApplication> cached = all.get(ALL_KEY, key -> List.copyOf(delegate.findAll()));
+        List<DormApplication> result = new ArrayList<>(cached.size());
+        for (DormApplication app : cached) {
+            result.add(app.copyFor(app.getStudent().copy()));
+        }
+        return result;
+    }
+
+    @Override
+    public ApplicationPage findPage(ApplicationQuery query) {
+        return delegate.findPage(query);
+    }
+
+    @Override
+    public int countMatching(ApplicationQuery query) {
+        return delegate.countMatching(query);
+    }
+
+    @Override
+    public int forEachMatching(ApplicationQuery query, Consumer<DormApplication> action) {
+        return delegate.forEachMatching(query, action);
+    }
+
+    @Override
+    public ApplicationStatistics findStatistics() {
+        // Cached with its own, shorter lifetime by StatisticsService
+        return delegate.findStatistics();
+    }
+
+    @Override
+    public void save(DormApplication application) {
+        try {
+            delegate.save(application);
+        } finally {
+            invalidate(application);
+        }
+    }
+
+    @Override
+    public void saveAll(List<DormApplication> applications) {
+        try {
+            delegate.saveAll(applications);
+        } finally {
+            invalidateAfterWrite(() -> {
+                for (DormApplication application : applications) {
+                    byStudent.invalidate(application.getStudent().getId());
+                }
+                all.invalidateAll();
+            });
+        }
+    }
+
+    @Override
+    public void update(DormApplication application) {
+        try {
+            delegate.update(application);
+        } finally {
+            invalidate(application);
+        }
+    }
+
+    @Override
+    public int[] updateAll(List<DormApplication> applications, List<ApplicationStatus> expectedStatuses) {
+        try {
+            return delegate.updateAll(applications, expectedStatuses);
+        } finally {
+            invalidateAfterWrite(() -> {
+                for (DormApplication application : applications) {
+                    byStudent.invalidate(application.getStudent().getId());
+                }
+                all.invalidateAll();
+            });
+        }
+    }
+
+    @Override
+    public void delete(DormApplication application) {
+        try {
+            delegate.delete(application);
+        } finally {
+            invalidate(application);
+        }
+    }
+
+    @Override
+    public ChangeSet<DormApplication> findChangedSince(LocalDateTime since) {
+        return delegate.findChangedSince(since);
+    }
+
+    public void invalidateAll() {
+        byStudent.invalidateAll();
+        all.invalidateAll();
+    }
+
+    public TtlCache.Stats getCacheStats() {
+        return byStudent.stats().add(all.stats());
+    }
+
+    private void invalidate(DormApplication application) {
+        invalidateAfterWrite(() -> {
+            byStudent.invalidate(application.getStudent().getId());
+            all.invalidateAll();
+        });
+    }
+
+    //Drop now, and again after commit: a reader between the two could have reloaded the old row
+
+    private static void invalidateAfterWrite(Runnable drop) {
+        drop.run();
+        DatabaseConnection.afterCommit(drop);
+    }
+}
@@ -0,0 +1,206 @@
+package dorm.dao;
+
+import dorm.model.Student;
+import dorm.util.TtlCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+
+//Read-through cache in front of a StudentRepository. Writes go straight to the
+//delegate and then drop every cached entry the write could have changed, again once the
+//surrounding transaction commits. Callers always get their own copies of cached students.
+//Keys are lower-cased, matching the database's case-insensitive collation.
+public class CachingStudentRepository implements StudentRepository {
+
+    private static final String ALL_KEY = "*";
+
+    private final StudentRepository delegate;
+    private final TtlCache<String, Optional<Student>> byStudentId;
+    private final TtlCache<String, Optional<Student>> byUsername;
+    private final TtlCache<String, List<Student>> lists;     // "*" for findAll, "building:<name>" otherwise
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    public CachingStudentRepository(StudentRepository delegate, int maxEntries, long ttlMillis) {
+        this.delegate = delegate;
+        this.byStudentId = new TtlCache<>(maxEntries, ttlMillis);
+        this.byUsername = new TtlCache<>(maxEntries, ttlMillis);
+        this.lists = new TtlCache<>(Math.max(8, maxEntries / 16), ttlMillis);
+    }
+
+    //Run a callback after every student write (e.g. to drop caches that embed students)
+
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public Optional<Student> findByStudentId(String studentId) {
+        return byStudentId.get(key(studentId), key -> delegate.findByStudentId(studentId)).map(Student::copy);
+    }
+
+    //Not cached: this is the one lookup that carries the password hash (for login), and the
+    //hash should not sit in memory any longer than the login that needed it
+
+    @Override
+    public Optional<Student> findByUsername(String username) {
+        return delegate.findByUsername(username);
+    }
+
+    @Override
+    public Map<String, Student> findByUsernames(Collection<String> usernames) {
+        // Serve what we can from the per-username cache and fetch the rest in one batch
+        Map<String, Student> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String username : usernames) {
+            Optional<Student> cached = byUsername.getIfPresent(key(username));
+            if (cached == null) {
+                missing.add(username);
+            } else {
+                cached.ifPresent(s -> result.put(username, s.copy()));
+            }
+        }
+        
+        if (!missing.isEmpty()) {
+            // The database matches "Abebe" to "abebe"; look loaded rows up the same way
+            Map<String, Student> loaded = new HashMap<>();
+            for (Student student : delegate.findByUsernames(missing).values()) {
+                loaded.put(key(student.getUsername()), student);
+            }
+            for (String username : missing) {
+                Student student = loaded.get(key(username));
+                byUsername.put(key(username), Optional.ofNullable(student));
+                if (student != null) {
+                    result.put(username, student.copy());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Set<String> findExistingStudentIds(Collection<String> studentIds) {
+        return delegate.findExistingStudentIds(studentIds);
+    }
+
+    @Override
+    public Set<String> findExistingUsernames(Collection<String> usernames) {
+        return delegate.findExistingUsernames(usernames);
+    }
+
+    @Override
+    public List<Student> findAll() {
+        return copies(lists.get(ALL_KEY, key -> List.copyOf(delegate.findAll())));
+    }
+
+    @Override
+    public List<Student> findByBuilding(String buildingName) {
+        return copies(lists.get("building:" + buildingName, key -> List.copyOf(delegate.findByBuilding(buildingName))));
+    }
+
+    @Override
+    public void save(Student student) {
+        try {
+            delegate.save(student);
+        } finally {
+            invalidate(student);
+        }
+    }
+
+    @Override
+    public void saveAll(List<Student> students) {
+        try {
+            delegate.saveAll(students);
+        } finally {
+            invalidateAfterWrite(() -> {
+                for (Student student : students) {
+                    byStudentId.invalidate(key(student.getStudentId()));
+                    byUsername.invalidate(key(student.getUsername()));
+                }
+                lists.invalidateAll();
+                notifyChanged();
+            });
+        }
+    }
+
+    //An update can rewrite username and studentId by id, leaving the entries under the old keys
+    //stale, and those are not known here; student updates are rare enough to drop everything
+
+    @Override
+    public void update(Student student) {
+        try {
+            delegate.update(student);
+        } finally {
+            invalidateAfterWrite(this::invalidateAll);
+        }
+    }
+
+    @Override
+    public void updatePassword(String id, String passwordHash) {
+        // Nothing cached holds the password, so there is nothing to drop
+        delegate.updatePassword(id, passwordHash);
+    }
+
+    @Override
+    public int[] updateAll(List<Student> students) {
+        try {
+            return delegate.updateAll(students);
+        } finally {
+            invalidateAfterWrite(this::invalidateAll);
+        }
+    }
+
+    public void invalidateAll() {
+        byStudentId.invalidateAll();
+        byUsername.invalidateAll();
+        lists.invalidateAll();
+        notifyChanged();
+    }
+
+    public TtlCache.Stats getCacheStats() {
+        return byStudentId.stats().add(byUsername.stats()).add(lists.stats());
+    }
+
+    //After an insert only the new keys (possibly cached as absent) and the lists are stale
+
+    private void invalidate(Student student) {
+        invalidateAfterWrite(() -> {
+            byStudentId.invalidate(key(student.getStudentId()));
+            byUsername.invalidate(key(student.getUsername()));
+            lists.invalidateAll();
+            notifyChanged();
+        });
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    //Drop now, and again after commit: a reader between the two could have reloaded the old row
+
+    private static void invalidateAfterWrite(Runnable drop) {
+        drop.run();
+        DatabaseConnection.afterCommit(drop);
+    }
+
+    private static List<Student> copies(List<Student> students) {
+        List<Student> result = new ArrayList<>(students.size());
+        for (Student student : students) {
+            result.add(student.copy());
+        }
+        return result;
+    }
+
+    private void notifyChanged() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package dorm.dao;
+
+import dorm.model.Role;
+import dorm.model.User;
+import dorm.util.TtlCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+
+//Read-through cache in front of a UserRepository. Staff accounts change rarely,
+//so any write simply clears everything. Callers get their own copies of cached users,
+//and usernames are matched case-insensitively like the database does.
+public class CachingUserRepository implements UserRepository {
+
+    private static final String ALL_KEY = "*";
+
+    private final UserRepository delegate;
+    private final TtlCache<String, Optional<User>> byUsername;
+    private final TtlCache<String, List<User>> lists;     // "*" for findAll, role name otherwise
+
+    public CachingUserRepository(UserRepository delegate, int maxEntries, long ttlMillis) {
+        this.delegate = delegate;
+        this.byUsername = new TtlCache<>(maxEntries, ttlMillis);
+        this.lists = new TtlCache<>(Role.values().length + 1, ttlMillis);
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        String key = username == null ? "" : username.toLowerCase(Locale.ROOT);
+        return byUsername.get(key, k -> delegate.findByUsername(username)).map(User::copy);
+    }
+
+    @Override
+    public List<User> findByRole(Role role) {
+        return copies(lists.get(role.name(), key -> List.copyOf(delegate.findByRole(role))));
+    }
+
+    @Override
+    public List<User> findAll() {
+        return copies(lists.get(ALL_KEY, key -> List.copyOf(delegate.findAll())));
+    }
+
+    @Override
+    public void save(User user) {
+        try {
+            delegate.save(user);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public void updatePassword(String id, String passwordHash) {
+        try {
+            delegate.updatePassword(id, passwordHash);
+        } finally {
+            byUsername.invalidateAll();
+        }
+    }
+
+    @Override
+    public void delete(User user) {
+        try {
+            delegate.delete(user);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    public void invalidateAll() {
+        byUsername.invalidateAll();
+        lists.invalidateAll();
+    }
+
+    public TtlCache.Stats getCacheStats() {
+        return byUsername.stats().add(lists.stats());
+    }
+
+    private static List<User> copies(List<User> users) {
+        List<User> result = new ArrayList<>(users.size());
+        for (User user : users) {
+            result.add(user.copy());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,157 @@
+package dorm.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+//Rows changed since a version, plus the version to ask from next time. Versions are database
+//timestamps (the updatedAt columns), so every client compares against the same clock.
+//A null version means "no previous load": the change set then holds every live row.
+//
+//updatedAt is stamped when a statement runs, not when its transaction commits, so a version
+//is a watermark rather than the current time: it is held at the start of the oldest
+//transaction still open, and a row stamped by that transaction is read again once it commits,
+//however long it ran. Rows delivered twice are harmless.
+
+public class ChangeSet<T> {
+
+    private static final Logger LOGGER = Logger.getLogger(ChangeSet.class.getName());
+
+    // Oldest open transaction other than our own; trx_started has whole seconds, which only
+    // moves the watermark earlier. Reading INNODB_TRX needs the PROCESS privilege.
+    private static final String VERSION_SQL = """
+        SELECT NOW(6), (SELECT MIN(trx_started) FROM information_schema.INNODB_TRX
+                        WHERE trx_mysql_thread_id <> CONNECTION_ID())
+    """;
+
+    // Without PROCESS only a fixed overlap is possible, which a transaction longer than this misses
+    private static final Duration FALLBACK_OVERLAP = Duration.ofSeconds(30);
+    private static final AtomicBoolean fallbackWarned = new AtomicBoolean();
+
+    private final List<T> changed;
+    private final Set<String> removedIds;
+    private final LocalDateTime version;
+
+    public ChangeSet(List<T> changed, Set<String> removedIds, LocalDateTime version) {
+        this.changed = changed;
+        this.removedIds = removedIds;
+        this.version = version;
+    }
+
+    public List<T> getChanged() {
+        return changed;
+    }
+
+    public Set<String> getRemovedIds() {
+        return Collections.unmodifiableSet(removedIds);
+    }
+
+    public LocalDateTime getVersion() {
+        return version;
+    }
+
+    public boolean isEmpty() {
+        return changed.isEmpty() && removedIds.isEmpty();
+    }
+
+    //Merge into a list kept in the given order: changed rows replace their old copy in place,
+    //new rows are inserted where they sort, removed rows are dropped. Returns true if the list changed.
+
+    public boolean applyTo(List<T> items, Function<T, String> idOf, Comparator<? super T> order) {
+        if (isEmpty()) {
+            return false;
+        }
+
+        if (!removedIds.isEmpty()) {
+            items.removeIf(item -> removedIds.contains(idOf.apply(item)));
+        }
+
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            positions.put(idOf.apply(items.get(i)), i);
+        }
+
+        // Replace in place first, while the positions are still valid, then insert the new rows
+        List<T> added = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (T row : changed) {
+            String id = idOf.apply(row);
+            if (!seen.add(id)) {
+                continue;
+            }
+            Integer position = positions.get(id);
+            if (position != null) {
+                items.set(position, row);
+            } else {
+                added.add(row);
+            }
+        }
+
+        for (T row : added) {
+            int insertAt = Collections.binarySearch(items, row, order);
+            items.add(insertAt < 0 ? -insertAt - 1 : insertAt, row);
+        }
+        return true;
+    }
+
+
+    // ---- helpers for repositories ----
+
+    //Read the watermark: the database clock, or the start of the oldest open transaction if
+    //that is earlier. Taken before the change query so nothing falls between two versions.
+
+    static LocalDateTime readVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(VERSION_SQL)) {
+            rs.next();
+            LocalDateTime now = rs.getTimestamp(1).toLocalDateTime();
+            Timestamp oldestOpen = rs.getTimestamp(2);
+            if (oldestOpen != null && oldestOpen.toLocalDateTime().isBefore(now)) {
+                return oldestOpen.toLocalDateTime();
+            }
+            return now;
+        } catch (SQLException e) {
+            if (!isAccessDenied(e)) {
+                throw e;
+            }
+            if (fallbackWarned.compareAndSet(false, true)) {
+                LOGGER.log(Level.WARNING, "Cannot read open transactions (grant PROCESS to the database user); "
+                    + "change feeds fall back to a " + FALLBACK_OVERLAP.toSeconds() + "s overlap", e);
+            }
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT NOW(6)")) {
+                rs.next();
+                return rs.getTimestamp(1).toLocalDateTime().minus(FALLBACK_OVERLAP);
+            }
+        }
+    }
+
+    //Lower bound to bind into "updatedAt > ?" for a previous version. A row stamped exactly at
+    //the watermark may belong to the transaction that held it, so it is included.
+
+    static Timestamp lowerBound(LocalDateTime since) {
+        return Timestamp.valueOf(since.minus(1, ChronoUnit.MICROS));
+    }
+
+    // ER_SPECIFIC_ACCESS_DENIED_ERROR / ER_TABLEACCESS_DENIED_ERROR, SQLSTATE 42000
+    private static boolean isAccessDenied(SQLException e) {
+        return e.getErrorCode() == 1227 || e.getErrorCode() == 1142;
+    }
+}
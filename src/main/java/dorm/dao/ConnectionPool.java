@@ -0,0 +1,371 @@
+package dorm.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+//Bounded pool of warm JDBC connections. Callers get a proxy whose close() hands the
+//physical connection back to the pool instead of closing the socket.
+public class ConnectionPool {
+
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final Settings settings;
+
+    private final Deque<PooledEntry> idle = new ArrayDeque<>();
+    private final Map<Connection, Lease> leased = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String url, String username, String password, Settings settings) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+
+        fillToMinimum();
+        long period = Math.max(1000, settings.housekeepingIntervalMs);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    //Borrow a connection, waiting up to borrowTimeoutMs when the pool is exhausted
+
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        try {
+            if (!permits.tryAcquire(settings.borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + settings.borrowTimeoutMs
+                        + " ms waiting for a database connection (max pool size " + settings.maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null) {
+                physical = openPhysical();
+            }
+            Connection proxy = wrap(physical);
+            Throwable origin = settings.leakDetectionMs > 0 ? new Throwable("Connection borrowed here") : null;
+            leased.put(proxy, new Lease(physical, System.currentTimeMillis(), origin));
+            return proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    //Number of connections currently handed out
+
+    public int getActiveCount() {
+        return leased.size();
+    }
+
+    //Number of warm connections waiting in the pool
+
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    //Close every idle connection and stop housekeeping. Leased connections are closed as they come back.
+
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (idle) {
+            for (PooledEntry entry : idle) {
+                DatabaseConnection.closeQuietly(entry.connection);
+            }
+            idle.clear();
+        }
+    }
+
+    private Connection takeValidIdle() {
+        while (true) {
+            PooledEntry entry;
+            synchronized (idle) {
+                entry = idle.pollFirst();
+            }
+            if (entry == null) {
+                return null;
+            }
+            if (isUsable(entry.connection)) {
+                return entry.connection;
+            }
+            DatabaseConnection.closeQuietly(entry.connection);
+        }
+    }
+
+    private boolean isUsable(Connection conn) {
+        try {
+            return !conn.isClosed() && conn.isValid(settings.validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Properties info = new Properties();
+        if (username != null) info.setProperty("user", username);
+        if (password != null) info.setProperty("password", password);
+
+        if (settings.statementCacheSize > 0) {
+            // Connector/J keeps prepared statements per physical connection; since pooled
+            // connections live for a long time, repeated SQL text skips the parse step.
+            // Anything set explicitly in db.url takes precedence over these.
+            info.setProperty("cachePrepStmts", "true");
+            info.setProperty("prepStmtCacheSize", String.valueOf(settings.statementCacheSize));
+            info.setProperty("prepStmtCacheSqlLimit", String.valueOf(settings.statementCacheSqlLimit));
+            info.setProperty("useServerPrepStmts", String.valueOf(settings.serverPreparedStatements));
+        }
+        return DriverManager.getConnection(url, info);
+    }
+
+    private void release(Connection proxy) {
+        Lease lease = leased.remove(proxy);
+        if (lease == null) {
+            return; // already returned
+        }
+
+        Connection physical = lease.connection;
+        try {
+            if (closed || physical.isClosed()) {
+                DatabaseConnection.closeQuietly(physical);
+                return;
+            }
+            // Undo anything a caller left behind so the next borrower gets a clean connection
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            physical.clearWarnings();
+            synchronized (idle) {
+                idle.offerFirst(new PooledEntry(physical, System.currentTimeMillis()));
+            }
+        } catch (SQLException e) {
+            DatabaseConnection.closeQuietly(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            detectLeaks();
+            fillToMinimum();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Connection pool housekeeping failed", e);
+        }
+    }
+
+    //Close connections idle longer than idleTimeoutMs, but never drop below minSize
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - settings.idleTimeoutMs;
+        synchronized (idle) {
+            int removable = idle.size() + leased.size() - settings.minSize;
+            // Oldest entries sit at the tail because returned connections go to the head
+            while (removable > 0 && !idle.isEmpty() && idle.peekLast().returnedAt < cutoff) {
+                DatabaseConnection.closeQuietly(idle.pollLast().connection);
+                removable--;
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        if (settings.leakDetectionMs <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Lease lease : leased.values()) {
+            if (!lease.reported && now - lease.borrowedAt > settings.leakDetectionMs) {
+                lease.reported = true;
+                LOGGER.log(Level.WARNING, "Possible connection leak: connection held for "
+                        + (now - lease.borrowedAt) + " ms", lease.origin);
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        if (closed) {
+            return;
+        }
+        while (true) {
+            synchronized (idle) {
+                if (idle.size() + leased.size() >= settings.minSize) {
+                    return;
+                }
+            }
+            try {
+                Connection conn = openPhysical();
+                synchronized (idle) {
+                    idle.offerLast(new PooledEntry(conn, System.currentTimeMillis()));
+                }
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Could not pre-open database connection: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        InvocationHandler handler = new InvocationHandler() {
+            private volatile boolean returned = false;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!returned) {
+                            returned = true;
+                            release((Connection) proxy);
+                        }
+                        return null;
+                    case "isClosed":
+                        return returned || physical.isClosed();
+                    case "unwrap":
+                        if (args != null && args.length == 1 && ((Class<?>) args[0]).isInstance(physical)) {
+                            return physical;
+                        }
+                        break;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled[" + physical + "]";
+                    default:
+                        break;
+                }
+                if (returned) {
+                    throw new SQLException("Connection has already been returned to the pool");
+                }
+                try {
+                    return method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+    }
+
+    private static final class PooledEntry {
+        final Connection connection;
+        final long returnedAt;
+
+        PooledEntry(Connection connection, long returnedAt) {
+            this.connection = connection;
+            this.returnedAt = returnedAt;
+        }
+    }
+
+    private static final class Lease {
+        final Connection connection;
+        final long borrowedAt;
+        final Throwable origin;
+        volatile boolean reported = false;
+
+        Lease(Connection connection, long borrowedAt, Throwable origin) {
+            this.connection = connection;
+            this.borrowedAt = borrowedAt;
+            this.origin = origin;
+        }
+    }
+
+    //Pool sizing and timeouts, read from db.properties (db.pool.*)
+
+    public static final class Settings {
+        int minSize = 2;
+        int maxSize = 10;
+        long borrowTimeoutMs = 30_000;
+        int validationTimeoutSec = 2;
+        long idleTimeoutMs = 600_000;
+        long leakDetectionMs = 60_000;
+        long housekeepingIntervalMs = 30_000;
+        int statementCacheSize = 250;          // per connection; 0 disables the driver cache
+        int statementCacheSqlLimit = 2048;     // longer SQL text is not cached
+        boolean serverPreparedStatements = true;
+
+        public static Settings fromProperties(Properties props) {
+            Settings s = new Settings();
+            s.minSize = intProp(props, "db.pool.minSize", s.minSize);
+            s.maxSize = intProp(props, "db.pool.maxSize", s.maxSize);
+            s.borrowTimeoutMs = longProp(props, "db.pool.borrowTimeoutMs", s.borrowTimeoutMs);
+            s.validationTimeoutSec = intProp(props, "db.pool.validationTimeoutSec", s.validationTimeoutSec);
+            s.idleTimeoutMs = longProp(props, "db.pool.idleTimeoutMs", s.idleTimeoutMs);
+            s.leakDetectionMs = longProp(props, "db.pool.leakDetectionMs", s.leakDetectionMs);
+            s.housekeepingIntervalMs = longProp(props, "db.pool.housekeepingIntervalMs", s.housekeepingIntervalMs);
+            s.statementCacheSize = intProp(props, "db.statementCache.size", s.statementCacheSize);
+            s.statementCacheSqlLimit = intProp(props, "db.statementCache.sqlLimit", s.statementCacheSqlLimit);
+            s.serverPreparedStatements = Boolean.parseBoolean(
+                props.getProperty("db.statementCache.serverSide", String.valueOf(s.serverPreparedStatements)).trim());
+
+            if (s.maxSize < 1) s.maxSize = 1;
+            if (s.minSize < 0) s.minSize = 0;
+            if (s.minSize > s.maxSize) s.minSize = s.maxSize;
+            return s;
+        }
+
+        private static int intProp(Properties props, String key, int def) {
+            String value = props.getProperty(key);
+            if (value == null || value.isBlank()) return def;
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                LOGGER.warning("Ignoring invalid value for " + key + ": " + value);
+                return def;
+            }
+        }
+
+        private static long longProp(Properties props, String key, long def) {
+            String value = props.getProperty(key);
+            if (value == null || value.isBlank()) return def;
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                LOGGER.warning("Ignoring invalid value for " + key + ": " + value);
+                return def;
+            }
+        }
+    }
+}
@@ -1,4 +1,6 @@
 package dorm.dao;
+
+import java.util.Properties;
  
 public class DaoFactory {
     
@@ -7,31 +9,68 @@ public class DaoFactory {
     private static ApplicationRepository applicationRepository;
     private static AnnouncementRepository announcementRepository;
     private static MessageRepository messageRepository;
+    private static StatusEventRepository statusEventRepository;
+    private static BuildingRepository buildingRepository;
+    
+    // Read-through caching in front of the MySQL repositories (cache.* in db.properties)
+    private static boolean cachingEnabled = true;
+    private static int cacheMaxEntries = 2000;
+    private static long cacheTtlMillis = 30_000;
+    
+    static {
+        Properties config = DatabaseConnection.getConfiguration();
+        cachingEnabled = Boolean.parseBoolean(config.getProperty("cache.enabled", String.valueOf(cachingEnabled)));
+        try {
+            cacheMaxEntries = Integer.parseInt(config.getProperty("cache.maxEntries", String.valueOf(cacheMaxEntries)).trim());
+            cacheTtlMillis = Long.parseLong(config.getProperty("cache.ttlSeconds", String.valueOf(cacheTtlMillis / 1000)).trim()) * 1000;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid cache settings in db.properties, using defaults: " + e.getMessage());
+        }
+    }
     
     public static UserRepository createUserRepository() {
         if (userRepository == null) {
-            userRepository = new MySqlUserRepository();
+            UserRepository repository = new MySqlUserRepository();
+            userRepository = cachingEnabled
+                ? new CachingUserRepository(repository, cacheMaxEntries, cacheTtlMillis)
+                : repository;
         }
         return userRepository;
     }
     
     public static StudentRepository createStudentRepository() {
         if (studentRepository == null) {
-            studentRepository = new MySqlStudentRepository();
+            StudentRepository repository = new MySqlStudentRepository();
+            studentRepository = cachingEnabled
+                ? new CachingStudentRepository(repository, cacheMaxEntries, cacheTtlMillis)
+                : repository;
         }
         return studentRepository;
     }
     
     public static ApplicationRepository createApplicationRepository() {
         if (applicationRepository == null) {
-            applicationRepository = new MySqlApplicationRepository(createStudentRepository());
+            ApplicationRepository repository = new MySqlApplicationRepository();
+            if (cachingEnabled) {
+                CachingApplicationRepository cached =
+                    new CachingApplicationRepository(repository, cacheMaxEntries, cacheTtlMillis);
+                // Applications embed their Student, so a student write makes cached applications stale
+                if (createStudentRepository() instanceof CachingStudentRepository students) {
+                    students.addChangeListener(cached::invalidateAll);
+                }
+                repository = cached;
+            }
+            applicationRepository = repository;
         }
         return applicationRepository;
     }
     
     public static AnnouncementRepository createAnnouncementRepository() {
         if (announcementRepository == null) {
-            announcementRepository = new MySqlAnnouncementRepository();
+            AnnouncementRepository repository = new MySqlAnnouncementRepository();
+            announcementRepository = cachingEnabled
+                ? new CachingAnnouncementRepository(repository, cacheTtlMillis)
+                : repository;
         }
         return announcementRepository;
     }
@@ -43,6 +82,26 @@ public class DaoFactory {
         return messageRepository;
     }
     
+    public static StatusEventRepository createStatusEventRepository() {
+        if (statusEventRepository == null) {
+            statusEventRepository = new MySqlStatusEventRepository();
+        }
+        return statusEventRepository;
+    }
+    
+    public static BuildingRepository createBuildingRepository() {
+        if (buildingRepository == null) {
+            buildingRepository = new MySqlBuildingRepository();
+        }
+        return buildingRepository;
+    }
+    
+    //Turn the caching decorators on or off for repositories created after this call
+
+    public static void setCachingEnabled(boolean enabled) {
+        cachingEnabled = enabled;
+    }
+    
     //Reset all repositories (useful for testing)
 
     public static void reset() {
@@ -51,5 +110,7 @@ public class DaoFactory {
         applicationRepository = null;
         announcementRepository = null;
         messageRepository = null;
+        statusEventRepository = null;
+        buildingRepository = null;
     }
 }
@@ -1,12 +1,15 @@
 package dorm.dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.function.Supplier;
 
 
 public class DatabaseConnection {
@@ -17,7 +20,15 @@ public class DatabaseConnection {
     private static String username = "root";
     private static String password = "";
     
-    private static boolean initialized = false;
+    private static Properties configuration = new Properties();
+    private static ConnectionPool.Settings poolSettings = ConnectionPool.Settings.fromProperties(new Properties());
+    private static ConnectionPool pool;
+    
+    private static volatile boolean initialized = false;
+    
+    // Connection bound to the current thread while inTransaction(...) is running
+    private static final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
+    private static final ThreadLocal<List<Runnable>> afterCommitActions = new ThreadLocal<>();
     
     static {
         loadConfiguration();
@@ -34,120 +45,143 @@ public class DatabaseConnection {
                 url = props.getProperty("db.url", url);
                 username = props.getProperty("db.username", username);
                 password = props.getProperty("db.password", password);
+                poolSettings = ConnectionPool.Settings.fromProperties(props);
+                configuration = props;
             }
         } catch (IOException e) {
             System.err.println("Could not load database configuration, using defaults: " + e.getMessage());
         }
     }
     
-    //Get a database connection
+    //Settings loaded from db.properties (empty if the file is missing)
+
+    public static Properties getConfiguration() {
+        return configuration;
+    }
+    
+    //Get a pooled database connection; closing it returns it to the pool
 
     public static Connection getConnection() throws SQLException {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL JDBC Driver not found", e);
+        Connection active = transactionConnection.get();
+        if (active != null) {
+            // Inside a transaction every repository call shares one connection
+            return nonClosing(active);
         }
         
-        Connection conn = DriverManager.getConnection(url, username, password);
+        Connection conn = getPool().borrow();
         
         if (!initialized) {
-            initializeDatabase(conn);
-            initialized = true;
+            synchronized (DatabaseConnection.class) {
+                if (!initialized) {
+                    initializeDatabase(conn);
+                    initialized = true;
+                }
+            }
         }
         
         return conn;
     }
     
-    //Initialize database tables if they don't exist
+    //Run work in a single transaction. Repository calls made by work on this thread all use
+    //the same connection; it commits if work returns normally and rolls back if it throws.
+    //Nested calls join the outer transaction.
+
+    public static <T> T inTransaction(Supplier<T> work) {
+        if (transactionConnection.get() != null) {
+            return work.get();
+        }
+        
+        List<Runnable> actions = new ArrayList<>();
+        T result;
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            transactionConnection.set(conn);
+            afterCommitActions.set(actions);
+            try {
+                result = work.get();
+                conn.commit();
+            } catch (RuntimeException | Error | SQLException e) {
+                // Includes a failed commit: never hand the connection back with the transaction open
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            } finally {
+                transactionConnection.remove();
+                afterCommitActions.remove();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("run", "transaction", e);
+        }
+        
+        for (Runnable action : actions) {
+            action.run();
+        }
+        return result;
+    }
+    
+    //Run action once the current transaction has committed (it is dropped on rollback);
+    //outside a transaction it runs at once. Caches use this so a reader cannot reload a
+    //row between their invalidation and the commit and keep the old version.
+
+    public static void afterCommit(Runnable action) {
+        List<Runnable> actions = afterCommitActions.get();
+        if (actions == null) {
+            action.run();
+        } else {
+            actions.add(action);
+        }
+    }
+    
+    private static Connection nonClosing(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            (proxy, method, args) -> {
+                if ("close".equals(method.getName())) {
+                    return null; // the transaction owner closes it
+                }
+                try {
+                    return method.invoke(conn, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+    
+    private static synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null) {
+            try {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("MySQL JDBC Driver not found", e);
+            }
+            pool = new ConnectionPool(url, username, password, poolSettings);
+        }
+        return pool;
+    }
+    
+    //Close all pooled connections (call on application exit)
+
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+    
+    //Bring the schema up to date by running any pending migrations
 
     private static void initializeDatabase(Connection conn) {
-        try (Statement stmt = conn.createStatement()) {
-            // Create users table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS users (
-                    id VARCHAR(36) PRIMARY KEY,
-                    username VARCHAR(50) UNIQUE NOT NULL,
-                    password VARCHAR(255) NOT NULL,
-                    full_name VARCHAR(100),
-                    role ENUM('STUDENT','ADMIN','OWNER','PROCTOR') NOT NULL
-                )
-            """);
-            
-            // Create Student table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS Student (
-                    id VARCHAR(50) PRIMARY KEY,
-                    username VARCHAR(50) NOT NULL UNIQUE,
-                    password VARCHAR(100) NOT NULL,
-                    role ENUM('STUDENT', 'ADMIN', 'PROCTOR', 'OWNER') NOT NULL DEFAULT 'STUDENT',
-                    displayName VARCHAR(100),
-                    studentId VARCHAR(20) NOT NULL UNIQUE,
-                    gender ENUM('MALE', 'FEMALE'),
-                    college VARCHAR(50),
-                    residency ENUM('ADDIS_ABABA', 'SHEGER_CITY', 'REGIONAL'),
-                    city VARCHAR(50),
-                    subcity VARCHAR(50),
-                    woreda VARCHAR(50),
-                    sponsorshipType ENUM('GOVERNMENT', 'SELF_SPONSORED'),
-                    disabilityInfo VARCHAR(255),
-                    emergencyContactName VARCHAR(100),
-                    emergencyContactPhone VARCHAR(20),
-                    transactionId VARCHAR(50),
-                    assignedBuilding VARCHAR(50) DEFAULT 'unassigned'
-                )
-            """);
-            
-            // Create messages table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS messages (
-                    id VARCHAR(36) PRIMARY KEY,
-                    fromUser VARCHAR(100) NOT NULL,
-                    toUser VARCHAR(100) NOT NULL,
-                    content TEXT NOT NULL,
-                    sentAt DATETIME NOT NULL,
-                    isRead BOOLEAN DEFAULT FALSE
-                )
-            """);
-            
-            // Create dorm_applications table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS dorm_applications (
-                    id VARCHAR(36) PRIMARY KEY,
-                    studentId VARCHAR(36) NOT NULL,
-                    status ENUM(
-                        'PHASE_ONE_PENDING',
-                        'PHASE_ONE_APPROVED',
-                        'PHASE_ONE_DECLINED',
-                        'PHASE_ONE_RESUBMIT',
-                        'PHASE_TWO_PENDING',
-                        'PHASE_TWO_APPROVED',
-                        'PHASE_TWO_DECLINED',
-                        'ASSIGNED'
-                    ) NOT NULL DEFAULT 'PHASE_ONE_PENDING',
-                    adminNote TEXT,
-                    submittedDate DATE NOT NULL,
-                    responseHistory TEXT,
-                    FOREIGN KEY (studentId) REFERENCES Student(id) ON DELETE CASCADE
-                )
-            """);
-            
-            // Create announcements table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS announcements (
-                    id VARCHAR(36) PRIMARY KEY,
-                    title VARCHAR(255) NOT NULL,
-                    body TEXT NOT NULL,
-                    createdBy VARCHAR(100) NOT NULL,
-                    createdAt DATETIME NOT NULL
-                )
-            """);
-            
-            System.out.println("Database tables initialized successfully");
-            
+        try {
+            new SchemaMigrator().migrate(conn);
+            System.out.println("Database schema is up to date");
         } catch (SQLException e) {
-            System.err.println("Error initializing database tables: " + e.getMessage());
-            // Don't throw - tables might already exist with different structure
+            System.err.println("Error migrating database schema: " + e.getMessage());
+            // Don't throw - let the app start against whatever schema exists
         }
     }
     
@@ -165,7 +199,8 @@ public class DatabaseConnection {
     
     //Set connection parameters programmatically (for testing)
 
-    public static void setConnectionParams(String dbUrl, String dbUsername, String dbPassword) {
+    public static synchronized void setConnectionParams(String dbUrl, String dbUsername, String dbPassword) {
+        shutdown();
         url = dbUrl;
         username = dbUsername;
         password = dbPassword;
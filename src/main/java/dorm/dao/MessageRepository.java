@@ -1,16 +1,47 @@
 package dorm.dao;
 
+import dorm.model.ConversationSummary;
 import dorm.model.Message;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface MessageRepository {
     //Find all messages for a specific user (sent or received)
     List<Message> findByUser(String username);
     
+    //One page of a user's inbox, newest first, starting after olderThan (null = the newest page)
+    List<Message> findInboxPage(String toUser, Message olderThan, int limit);
+    
+    //Number of unread messages addressed to a user
+    int countUnread(String toUser);
+    
+    //Per-sender counts for a user's inbox, most recently active sender first
+    List<ConversationSummary> findConversations(String toUser, int limit);
+    
     //Save a new message
     void save(Message message);
     
+    //Save many messages in one JDBC batch
+    void saveAll(List<Message> messages);
+    
     //Update an existing message (e.g., mark as read)
     void update(Message message);
+    
+    //Set the read flag on many messages in one JDBC batch; returns the number of rows changed
+    int markRead(Collection<String> messageIds, boolean read);
+    
+    //Mark every unread message addressed to a user as read; returns the number of rows changed
+    int markAllRead(String toUser);
+    
+    //Messages sent or received by a user that were written or toggled after a version (null = all)
+    ChangeSet<Message> findChangedSince(String username, LocalDateTime since);
+    
+    //Inbox-only change feed; with no previous version it returns the newest page of the inbox
+    ChangeSet<Message> findReceivedChangedSince(String toUser, LocalDateTime since, int firstPageSize);
+    
+    //Time of the most recent write to a user's incoming messages, for cheap polling
+    Optional<LocalDateTime> findLastChangeTimeFor(String toUser);
 }
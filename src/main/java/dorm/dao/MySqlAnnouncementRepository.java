@@ -5,14 +5,17 @@ import dorm.model.Announcement;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 
 public class MySqlAnnouncementRepository implements AnnouncementRepository {
     
     @Override
     public List<Announcement> findAll() {
-        String sql = "SELECT * FROM announcements ORDER BY createdAt DESC";
+        String sql = "SELECT id, title, body, createdBy, createdAt FROM announcements WHERE deletedAt IS NULL ORDER BY createdAt DESC";
         List<Announcement> announcements = new ArrayList<>();
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -65,9 +68,11 @@ public class MySqlAnnouncementRepository implements AnnouncementRepository {
         }
     }
     
+    //Soft delete: the row stays as a tombstone so other dashboards see the removal in their change feed
+    
     @Override
     public void delete(Announcement announcement) {
-        String sql = "DELETE FROM announcements WHERE id = ?";
+        String sql = "UPDATE announcements SET deletedAt = NOW(6) WHERE id = ? AND deletedAt IS NULL";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -79,6 +84,53 @@ public class MySqlAnnouncementRepository implements AnnouncementRepository {
         }
     }
     
+    @Override
+    public ChangeSet<Announcement> findChangedSince(LocalDateTime since) {
+        String sql = since == null
+            ? "SELECT id, title, body, createdBy, createdAt, deletedAt FROM announcements WHERE deletedAt IS NULL ORDER BY createdAt DESC"
+            : "SELECT id, title, body, createdBy, createdAt, deletedAt FROM announcements WHERE updatedAt > ?";
+        List<Announcement> changed = new ArrayList<>();
+        Set<String> removedIds = new HashSet<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            LocalDateTime version = ChangeSet.readVersion(conn);
+            
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                if (since != null) {
+                    stmt.setTimestamp(1, ChangeSet.lowerBound(since));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (rs.getTimestamp("deletedAt") != null) {
+                            removedIds.add(rs.getString("id"));
+                        } else {
+                            changed.add(resultSetToAnnouncement(rs));
+                        }
+                    }
+                }
+            }
+            return new ChangeSet<>(changed, removedIds, version);
+        } catch (SQLException e) {
+            throw new DataAccessException("Error finding announcements changed since " + since, e);
+        }
+    }
+    
+    @Override
+    public Optional<LocalDateTime> findLastChangeTime() {
+        // Read from the end of idx_announcements_updatedAt, whatever the table size
+        String sql = "SELECT MAX(updatedAt) FROM announcements";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            Timestamp ts = rs.next() ? rs.getTimestamp(1) : null;
+            return Optional.ofNullable(ts).map(Timestamp::toLocalDateTime);
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading last announcement change", e);
+        }
+    }
+    
     //Convert ResultSet row to Announcement object
 
     private Announcement resultSetToAnnouncement(ResultSet rs) throws SQLException {
@@ -1,30 +1,37 @@
 package dorm.dao;
 
 import dorm.model.ApplicationStatus;
+import dorm.model.College;
 import dorm.model.DormApplication;
+import dorm.model.Gender;
+import dorm.model.Residency;
+import dorm.model.SponsorshipType;
 import dorm.model.Student;
 
 import java.sql.*;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 
 public class MySqlApplicationRepository implements ApplicationRepository {
     
-    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-    
-    private final StudentRepository studentRepository;
-    
-    public MySqlApplicationRepository(StudentRepository studentRepository) {
-        this.studentRepository = studentRepository;
-    }
+    // Application columns are aliased so they don't clash with Student.id / Student.studentId
+    private static final String JOINED_SELECT =
+        "SELECT a.id AS applicationId, a.status, a.adminNote, a.submittedDate, a.latestResponseStatus, a.latestResponseAt, " +
+        MySqlStudentRepository.QUALIFIED_COLUMNS +
+        " FROM dorm_applications a JOIN Student s ON s.id = a.studentId";
     
     @Override
     public Optional<DormApplication> findByStudent(Student student) {
-        String sql = "SELECT * FROM dorm_applications WHERE studentId = ?";
+        String sql = "SELECT id, status, adminNote, submittedDate, latestResponseStatus, latestResponseAt FROM dorm_applications WHERE studentId = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -33,7 +40,7 @@ public class MySqlApplicationRepository implements ApplicationRepository {
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(resultSetToApplication(rs, student));
+                    return Optional.of(resultSetToApplication(rs, "id", student));
                 }
             }
         } catch (SQLException e) {
@@ -45,25 +52,27 @@ public class MySqlApplicationRepository implements ApplicationRepository {
     
     @Override
     public List<DormApplication> findAll() {
-        String sql = "SELECT * FROM dorm_applications";
+        String sql = JOINED_SELECT;
         List<DormApplication> applications = new ArrayList<>();
         
-        // First get all students for lookup
-        List<Student> allStudents = studentRepository.findAll();
+        // Identity map so a student is only materialized once per load
+        Map<String, Student> studentsById = new HashMap<>();
         
         try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
             
-            while (rs.next()) {
-                String studentUserId = rs.getString("studentId");
-                
-                // Find the student
-                for (Student student : allStudents) {
-                    if (student.getId().equals(studentUserId)) {
-                        applications.add(resultSetToApplication(rs, student));
-                        break;
+            // Connector/J streams rows one at a time instead of buffering the whole result
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    String studentUserId = rs.getString("id");
+                    Student student = studentsById.get(studentUserId);
+                    if (student == null) {
+                        student = MySqlStudentRepository.resultSetToStudent(rs);
+                        studentsById.put(studentUserId, student);
                     }
+                    applications.add(resultSetToApplication(rs, "applicationId", student));
                 }
             }
         } catch (SQLException e) {
@@ -73,27 +82,175 @@ public class MySqlApplicationRepository implements ApplicationRepository {
         return applications;
     }
     
+    private static final String COUNT_SELECT = "SELECT COUNT(*) FROM dorm_applications a JOIN Student s ON s.id = a.studentId";
+    
     @Override
-    public void save(DormApplication application) {
-        String sql = """
-            INSERT INTO dorm_applications (id, studentId, status, adminNote, submittedDate, responseHistory)
-            VALUES (?, ?, ?, ?, ?, ?)
-        """;
+    public ApplicationPage findPage(ApplicationQuery query) {
+        List<Object> params = new ArrayList<>();
+        String where = buildWhereClause(query, params);
+        
+        String countSql = COUNT_SELECT + where;
+        String pageSql = JOINED_SELECT + where + buildOrderByClause(query) + " LIMIT ? OFFSET ?";
+        
+        List<DormApplication> applications = new ArrayList<>();
+        int total = 0;
+        LocalDateTime version;
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // Read first: later changes are then picked up by findChangedSince(version)
+            version = ChangeSet.readVersion(conn);
+            
+            try (PreparedStatement stmt = conn.prepareStatement(countSql)) {
+                bindParameters(stmt, params);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        total = rs.getInt(1);
+                    }
+                }
+            }
+            
+            try (PreparedStatement stmt = conn.prepareStatement(pageSql)) {
+                int next = bindParameters(stmt, params);
+                stmt.setInt(next, query.getLimit());
+                stmt.setInt(next + 1, query.getOffset());
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Student student = MySqlStudentRepository.resultSetToStudent(rs);
+                        applications.add(resultSetToApplication(rs, "applicationId", student));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error finding application page", e);
+        }
+        
+        return new ApplicationPage(applications, total, query.getOffset(), query.getLimit(), version);
+    }
+    
+    @Override
+    public int countMatching(ApplicationQuery query) {
+        List<Object> params = new ArrayList<>();
+        String sql = COUNT_SELECT + buildWhereClause(query, params);
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, application.getId());
-            stmt.setString(2, application.getStudent().getId());
-            stmt.setString(3, application.getStatus().name());
-            stmt.setString(4, application.getAdminNote());
+            bindParameters(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error counting applications", e);
+        }
+    }
+    
+    @Override
+    public int forEachMatching(ApplicationQuery query, Consumer<DormApplication> action) {
+        List<Object> params = new ArrayList<>();
+        String sql = JOINED_SELECT + buildWhereClause(query, params) + buildOrderByClause(query);
+        int count = 0;
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
             
-            // Convert date string to SQL Date
-            Date submittedDate = parseSubmittedDate(application.getSubmittedDate());
-            stmt.setDate(5, submittedDate);
+            // Row-by-row streaming cursor: memory stays flat however many rows match
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            bindParameters(stmt, params);
             
-            stmt.setString(6, application.getResponseHistory());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Student student = MySqlStudentRepository.resultSetToStudent(rs);
+                    action.accept(resultSetToApplication(rs, "applicationId", student));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error streaming applications after " + count + " rows", e);
+        }
+        
+        return count;
+    }
+    
+    // One GROUP BY per breakdown, sent as a single statement; each row is (dimension, bucket, count)
+    private static final String STATISTICS_SQL = """
+            SELECT 'TOTAL' AS dimension, NULL AS bucket, COUNT(*) AS n
+              FROM dorm_applications a JOIN Student s ON s.id = a.studentId
+            UNION ALL
+            SELECT 'STATUS', a.status, COUNT(*)
+              FROM dorm_applications a JOIN Student s ON s.id = a.studentId GROUP BY a.status
+            UNION ALL
+            SELECT 'COLLEGE', s.college, COUNT(*)
+              FROM dorm_applications a JOIN Student s ON s.id = a.studentId GROUP BY s.college
+            UNION ALL
+            SELECT 'GENDER', s.gender, COUNT(*)
+              FROM dorm_applications a JOIN Student s ON s.id = a.studentId GROUP BY s.gender
+            UNION ALL
+            SELECT 'RESIDENCY', s.residency, COUNT(*)
+              FROM dorm_applications a JOIN Student s ON s.id = a.studentId GROUP BY s.residency
+            UNION ALL
+            SELECT 'SPONSORSHIP', s.sponsorshipType, COUNT(*)
+              FROM dorm_applications a JOIN Student s ON s.id = a.studentId GROUP BY s.sponsorshipType
+        """;
+    
+    @Override
+    public ApplicationStatistics findStatistics() {
+        int total = 0;
+        Map<ApplicationStatus, Integer> byStatus = new EnumMap<>(ApplicationStatus.class);
+        Map<College, Integer> byCollege = new EnumMap<>(College.class);
+        Map<Gender, Integer> byGender = new EnumMap<>(Gender.class);
+        Map<Residency, Integer> byResidency = new EnumMap<>(Residency.class);
+        Map<SponsorshipType, Integer> bySponsorship = new EnumMap<>(SponsorshipType.class);
+    
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(STATISTICS_SQL)) {
+    
+            while (rs.next()) {
+                String value = rs.getString("bucket");
+                int n = rs.getInt("n");
+                switch (rs.getString("dimension")) {
+                    case "TOTAL" -> total = n;
+                    case "STATUS" -> addCount(byStatus, ApplicationStatus.class, value, n);
+                    case "COLLEGE" -> addCount(byCollege, College.class, value, n);
+                    case "GENDER" -> addCount(byGender, Gender.class, value, n);
+                    case "RESIDENCY" -> addCount(byResidency, Residency.class, value, n);
+                    case "SPONSORSHIP" -> addCount(bySponsorship, SponsorshipType.class, value, n);
+                    default -> { }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error computing application statistics", e);
+        }
+    
+        return new ApplicationStatistics(total, byStatus, byCollege, byGender, byResidency, bySponsorship,
+            LocalDateTime.now());
+    }
+    
+    // NULL or unrecognised values are left out and show up as "not recorded"
+    private static <E extends Enum<E>> void addCount(Map<E, Integer> counts, Class<E> type, String value, int n) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        try {
+            counts.merge(Enum.valueOf(type, value), n, Integer::sum);
+        } catch (IllegalArgumentException e) {
+            // legacy value no longer in the enum
+        }
+    }
+    
+    private static final String INSERT_SQL = """
+            INSERT INTO dorm_applications (id, studentId, status, adminNote, submittedDate,
+                latestResponseStatus, latestResponseAt)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+    
+    @Override
+    public void save(DormApplication application) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
             
+            setInsertParameters(stmt, application);
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException("Error saving application: " + application.getId(), e);
@@ -101,31 +258,96 @@ public class MySqlApplicationRepository implements ApplicationRepository {
     }
     
     @Override
-    public void update(DormApplication application) {
-        String sql = """
+    public void saveAll(List<DormApplication> applications) {
+        if (applications.isEmpty()) {
+            return;
+        }
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            
+            for (DormApplication application : applications) {
+                setInsertParameters(stmt, application);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error saving " + applications.size() + " applications", e);
+        }
+    }
+    
+    private void setInsertParameters(PreparedStatement stmt, DormApplication application) throws SQLException {
+        stmt.setString(1, application.getId());
+        stmt.setString(2, application.getStudent().getId());
+        stmt.setString(3, application.getStatus().name());
+        stmt.setString(4, application.getAdminNote());
+        
+        stmt.setDate(5, toSqlDate(application.getSubmittedDate()));
+        
+        setLatestResponse(stmt, 6, application);
+    }
+    
+    private static final String UPDATE_SQL = """
             UPDATE dorm_applications SET
-                status = ?, adminNote = ?, submittedDate = ?, responseHistory = ?
+                status = ?, adminNote = ?, submittedDate = ?, latestResponseStatus = ?, latestResponseAt = ?
             WHERE id = ?
         """;
-        
+    
+    @Override
+    public void update(DormApplication application) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, application.getStatus().name());
-            stmt.setString(2, application.getAdminNote());
-            
-            Date submittedDate = parseSubmittedDate(application.getSubmittedDate());
-            stmt.setDate(3, submittedDate);
-            
-            stmt.setString(4, application.getResponseHistory());
-            stmt.setString(5, application.getId());
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
             
+            setUpdateParameters(stmt, application);
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException("Error updating application: " + application.getId(), e);
         }
     }
     
+    // Bulk actions decide eligibility from the status they loaded; the extra condition makes a
+    // row that another admin changed in the meantime update nothing instead of being overwritten
+    private static final String CONDITIONAL_UPDATE_SQL = UPDATE_SQL.replace("WHERE id = ?", "WHERE id = ? AND status = ?");
+    
+    @Override
+    public int[] updateAll(List<DormApplication> applications, List<ApplicationStatus> expectedStatuses) {
+        if (applications.isEmpty()) {
+            return new int[0];
+        }
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(CONDITIONAL_UPDATE_SQL)) {
+            
+            for (int i = 0; i < applications.size(); i++) {
+                setUpdateParameters(stmt, applications.get(i));
+                stmt.setString(7, expectedStatuses.get(i).name());
+                stmt.addBatch();
+            }
+            return stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error batch updating " + applications.size() + " applications", e);
+        }
+    }
+    
+    private void setUpdateParameters(PreparedStatement stmt, DormApplication application) throws SQLException {
+        stmt.setString(1, application.getStatus().name());
+        stmt.setString(2, application.getAdminNote());
+        
+        stmt.setDate(3, toSqlDate(application.getSubmittedDate()));
+        
+        setLatestResponse(stmt, 4, application);
+        stmt.setString(6, application.getId());
+    }
+    
+    //Bind the latest-response pointer (status, timestamp) starting at index
+    
+    private void setLatestResponse(PreparedStatement stmt, int index, DormApplication application) throws SQLException {
+        ApplicationStatus status = application.getLatestResponseStatus();
+        stmt.setString(index, status != null ? status.name() : null);
+        stmt.setTimestamp(index + 1, application.getLatestResponseAt() != null
+            ? Timestamp.valueOf(application.getLatestResponseAt()) : null);
+    }
+    
     @Override
     public void delete(DormApplication application) {
         String sql = "DELETE FROM dorm_applications WHERE id = ?";
@@ -140,11 +362,54 @@ public class MySqlApplicationRepository implements ApplicationRepository {
         }
     }
     
+    @Override
+    public ChangeSet<DormApplication> findChangedSince(LocalDateTime since) {
+        if (since == null) {
+            LocalDateTime version = readVersion();
+            return new ChangeSet<>(findAll(), new HashSet<>(), version);
+        }
+        
+        // A student edit (e.g. building assignment) changes the row shown for the application too.
+        // Two index range scans joined by UNION rather than one OR that would scan both tables.
+        String sql = JOINED_SELECT + " WHERE a.updatedAt > ?" +
+            " UNION " + JOINED_SELECT + " WHERE s.updatedAt > ?";
+        List<DormApplication> applications = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            LocalDateTime version = ChangeSet.readVersion(conn);
+            
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                Timestamp bound = ChangeSet.lowerBound(since);
+                stmt.setTimestamp(1, bound);
+                stmt.setTimestamp(2, bound);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Student student = MySqlStudentRepository.resultSetToStudent(rs);
+                        applications.add(resultSetToApplication(rs, "applicationId", student));
+                    }
+                }
+            }
+            // Applications are never deleted from the dashboards, so there are no tombstones to report
+            return new ChangeSet<>(applications, new HashSet<>(), version);
+        } catch (SQLException e) {
+            throw new DataAccessException("Error finding applications changed since " + since, e);
+        }
+    }
+    
+    private LocalDateTime readVersion() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return ChangeSet.readVersion(conn);
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading application change version", e);
+        }
+    }
+    
    
     //Convert ResultSet row to DormApplication object
      
-    private DormApplication resultSetToApplication(ResultSet rs, Student student) throws SQLException {
-        DormApplication app = new DormApplication(rs.getString("id"), student);
+    private DormApplication resultSetToApplication(ResultSet rs, String idColumn, Student student) throws SQLException {
+        DormApplication app = new DormApplication(rs.getString(idColumn), student);
         
         String statusStr = rs.getString("status");
         if (statusStr != null && !statusStr.isEmpty()) {
@@ -157,29 +422,101 @@ public class MySqlApplicationRepository implements ApplicationRepository {
         
         app.setAdminNote(rs.getString("adminNote"));
         
-        // Convert SQL Date to string format
         Date submittedDate = rs.getDate("submittedDate");
         if (submittedDate != null) {
-            app.setSubmittedDate(submittedDate.toLocalDate().format(DATE_FORMAT));
+            app.setSubmittedDate(submittedDate.toLocalDate());
         }
         
-        app.setResponseHistory(rs.getString("responseHistory"));
+        String latestStatus = rs.getString("latestResponseStatus");
+        Timestamp latestAt = rs.getTimestamp("latestResponseAt");
+        if (latestStatus != null && latestAt != null) {
+            try {
+                app.setLatestResponse(ApplicationStatus.valueOf(latestStatus), latestAt.toLocalDateTime());
+            } catch (IllegalArgumentException e) {
+                // Unknown status in the pointer - treat as no response yet
+            }
+        }
         
         return app;
     }
     
-    //Parse submitted date string to SQL Date
-    
-    private Date parseSubmittedDate(String dateStr) {
-        if (dateStr == null || dateStr.isEmpty()) {
-            return Date.valueOf(LocalDate.now());
+    //Build the WHERE clause for a query, collecting bind values in order
+
+    private String buildWhereClause(ApplicationQuery query, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        
+        if (query.getGender() != null) {
+            conditions.add("s.gender = ?");
+            params.add(query.getGender().name());
+        }
+        if (query.getResidency() != null) {
+            conditions.add("s.residency = ?");
+            params.add(query.getResidency().name());
+        }
+        if (query.getSubcity() != null && !query.getSubcity().isBlank()) {
+            conditions.add("s.subcity = ?");
+            params.add(query.getSubcity().trim());
+        }
+        if (query.getWoreda() != null && !query.getWoreda().isBlank()) {
+            conditions.add("s.woreda = ?");
+            params.add(query.getWoreda().trim());
+        }
+        if (query.getCollege() != null) {
+            conditions.add("s.college = ?");
+            params.add(query.getCollege().name());
+        }
+        if (query.getSponsorshipType() != null) {
+            conditions.add("s.sponsorshipType = ?");
+            params.add(query.getSponsorshipType().name());
+        }
+        if (query.getStatus() != null) {
+            conditions.add("a.status = ?");
+            params.add(query.getStatus().name());
+        }
+        // Inclusive date range on the DATE column, served by idx_applications_submittedDate
+        if (query.getSubmittedFrom() != null) {
+            conditions.add("a.submittedDate >= ?");
+            params.add(Date.valueOf(query.getSubmittedFrom()));
+        }
+        if (query.getSubmittedTo() != null) {
+            conditions.add("a.submittedDate <= ?");
+            params.add(Date.valueOf(query.getSubmittedTo()));
         }
         
-        try {
-            LocalDate localDate = LocalDate.parse(dateStr, DATE_FORMAT);
-            return Date.valueOf(localDate);
-        } catch (Exception e) {
-            return Date.valueOf(LocalDate.now());
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+    
+    //Sort columns come from a fixed enum mapping, never from user text
+
+    private String buildOrderByClause(ApplicationQuery query) {
+        String column = switch (query.getSortField()) {
+            case NAME -> "s.displayName";
+            case STUDENT_ID -> "s.studentId";
+            case STATUS -> "a.status";
+            case SUBMITTED_DATE -> "a.submittedDate";
+        };
+        String direction = query.isAscending() ? " ASC" : " DESC";
+        
+        StringBuilder orderBy = new StringBuilder(" ORDER BY ");
+        if (query.isAssignedLast()) {
+            orderBy.append("(a.status = 'ASSIGNED'), ");
         }
+        // Tie-break on id so pages are stable between requests
+        orderBy.append(column).append(direction).append(", a.id").append(direction);
+        return orderBy.toString();
+    }
+    
+    private int bindParameters(PreparedStatement stmt, List<Object> params) throws SQLException {
+        int index = 1;
+        for (Object param : params) {
+            stmt.setObject(index++, param);
+        }
+        return index;
+    }
+    
+    //Submitted date as a SQL DATE (the column is NOT NULL, so a missing date means today)
+    
+    private Date toSqlDate(LocalDate date) {
+        return Date.valueOf(date != null ? date : LocalDate.now());
     }
 }
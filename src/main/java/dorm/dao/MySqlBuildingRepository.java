@@ -0,0 +1,195 @@
+package dorm.dao;
+
+import dorm.model.Building;
+import dorm.model.Gender;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+
+public class MySqlBuildingRepository implements BuildingRepository {
+    
+    private static final String SELECT_SQL = "SELECT name, gender, capacity, accessibleBeds FROM buildings";
+    
+    @Override
+    public Optional<Building> findByName(String name) {
+        String sql = SELECT_SQL + " WHERE name = ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, name);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(resultSetToBuilding(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error finding building: " + name, e);
+        }
+        
+        return Optional.empty();
+    }
+    
+    @Override
+    public List<Building> findAll() {
+        String sql = SELECT_SQL + " ORDER BY name";
+        List<Building> buildings = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                buildings.add(resultSetToBuilding(rs));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error finding all buildings", e);
+        }
+        
+        return buildings;
+    }
+    
+    @Override
+    public void save(Building building) {
+        String sql = """
+            INSERT INTO buildings (name, gender, capacity, accessibleBeds) VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE gender = VALUES(gender), capacity = VALUES(capacity),
+                accessibleBeds = VALUES(accessibleBeds)
+        """;
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, building.getName());
+            stmt.setString(2, building.getGender().name());
+            stmt.setInt(3, building.getCapacity());
+            stmt.setInt(4, building.getAccessibleBeds());
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error saving building: " + building.getName(), e);
+        }
+    }
+    
+    @Override
+    public void delete(Building building) {
+        String sql = "DELETE FROM buildings WHERE name = ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, building.getName());
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error deleting building: " + building.getName(), e);
+        }
+    }
+    
+    @Override
+    public int findOccupancy(String buildingName) {
+        String sql = "SELECT residents FROM building_occupancy WHERE building = ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, buildingName);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading occupancy of building: " + buildingName, e);
+        }
+    }
+    
+    @Override
+    public Map<String, Integer> findOccupancy() {
+        String sql = "SELECT building, residents FROM building_occupancy";
+        Map<String, Integer> occupancy = new HashMap<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                occupancy.put(rs.getString(1), rs.getInt(2));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading building occupancy", e);
+        }
+        
+        return occupancy;
+    }
+    
+    @Override
+    public int reconcileOccupancy() {
+        // Shared locks on the counted Student rows hold off assignment changes until commit,
+        // so no trigger update can slip in between the recount and the fix
+        String countSql = """
+            SELECT assignedBuilding, COUNT(*) FROM Student
+            WHERE assignedBuilding IS NOT NULL AND assignedBuilding NOT IN ('', 'unassigned')
+            GROUP BY assignedBuilding
+            LOCK IN SHARE MODE
+        """;
+        String countersSql = "SELECT building, residents FROM building_occupancy FOR UPDATE";
+        String fixSql = """
+            INSERT INTO building_occupancy (building, residents) VALUES (?, ?)
+            ON DUPLICATE KEY UPDATE residents = VALUES(residents)
+        """;
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Map<String, Integer> actual = new HashMap<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(countSql)) {
+                while (rs.next()) {
+                    actual.put(rs.getString(1), rs.getInt(2));
+                }
+            }
+            
+            Map<String, Integer> counters = new HashMap<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(countersSql)) {
+                while (rs.next()) {
+                    counters.put(rs.getString(1), rs.getInt(2));
+                }
+            }
+            
+            Set<String> buildings = new HashSet<>(actual.keySet());
+            buildings.addAll(counters.keySet());
+            int corrected = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(fixSql)) {
+                for (String building : buildings) {
+                    int residents = actual.getOrDefault(building, 0);
+                    if (counters.getOrDefault(building, -1) != residents) {
+                        stmt.setString(1, building);
+                        stmt.setInt(2, residents);
+                        stmt.addBatch();
+                        corrected++;
+                    }
+                }
+                if (corrected > 0) {
+                    stmt.executeBatch();
+                }
+            }
+            return corrected;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reconciling building occupancy", e);
+        }
+    }
+    
+    private Building resultSetToBuilding(ResultSet rs) throws SQLException {
+        return new Building(
+            rs.getString("name"),
+            Gender.valueOf(rs.getString("gender")),
+            rs.getInt("capacity"),
+            rs.getInt("accessibleBeds")
+        );
+    }
+}
@@ -1,18 +1,28 @@
 package dorm.dao;
 
+import dorm.model.ConversationSummary;
 import dorm.model.Message;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 
 
 public class MySqlMessageRepository implements MessageRepository {
     
     @Override
     public List<Message> findByUser(String username) {
-        String sql = "SELECT * FROM messages WHERE fromUser = ? OR toUser = ? ORDER BY sentAt DESC";
+        // UNION of two (user, sentAt) index ranges; an OR across the two columns would scan the table
+        String sql = """
+            SELECT id, fromUser, toUser, content, sentAt, isRead FROM messages WHERE fromUser = ?
+            UNION
+            SELECT id, fromUser, toUser, content, sentAt, isRead FROM messages WHERE toUser = ?
+            ORDER BY sentAt DESC
+        """;
         List<Message> messages = new ArrayList<>();
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -34,25 +44,139 @@ public class MySqlMessageRepository implements MessageRepository {
     }
     
     @Override
-    public void save(Message message) {
-        String sql = "INSERT INTO messages (id, fromUser, toUser, content, sentAt, isRead) VALUES (?, ?, ?, ?, ?, ?)";
+    public List<Message> findInboxPage(String toUser, Message olderThan, int limit) {
+        // Keyset paging on (sentAt, id) walks idx_messages_toUser_sentAt from where the last page
+        // ended, so page 50 costs the same as page 1 (an OFFSET would read and discard every row before it)
+        String sql = olderThan == null
+            ? "SELECT id, fromUser, toUser, content, sentAt, isRead FROM messages WHERE toUser = ? " +
+              "ORDER BY sentAt DESC, id DESC LIMIT ?"
+            : "SELECT id, fromUser, toUser, content, sentAt, isRead FROM messages WHERE toUser = ? " +
+              "AND (sentAt < ? OR (sentAt = ? AND id < ?)) ORDER BY sentAt DESC, id DESC LIMIT ?";
+        List<Message> messages = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, toUser);
+            if (olderThan == null) {
+                stmt.setInt(2, limit);
+            } else {
+                Timestamp sentAt = Timestamp.valueOf(olderThan.getSentAt());
+                stmt.setTimestamp(2, sentAt);
+                stmt.setTimestamp(3, sentAt);
+                stmt.setString(4, olderThan.getId());
+                stmt.setInt(5, limit);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    messages.add(resultSetToMessage(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error finding inbox page for user: " + toUser, e);
+        }
+        
+        return messages;
+    }
+    
+    @Override
+    public int countUnread(String toUser) {
+        // Counts only the unread slice of idx_messages_toUser_isRead
+        String sql = "SELECT COUNT(*) FROM messages WHERE toUser = ? AND isRead = FALSE";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, toUser);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error counting unread messages for user: " + toUser, e);
+        }
+    }
+    
+    @Override
+    public List<ConversationSummary> findConversations(String toUser, int limit) {
+        // Answered from idx_messages_toUser_fromUser alone; the message bodies are never read
+        String sql = """
+            SELECT fromUser, COUNT(*) AS messageCount, SUM(isRead = FALSE) AS unreadCount, MAX(sentAt) AS lastMessageAt
+            FROM messages WHERE toUser = ?
+            GROUP BY fromUser
+            ORDER BY lastMessageAt DESC
+            LIMIT ?
+        """;
+        List<ConversationSummary> summaries = new ArrayList<>();
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, message.getId());
-            stmt.setString(2, message.getFromUser());
-            stmt.setString(3, message.getToUser());
-            stmt.setString(4, message.getContent());
-            stmt.setTimestamp(5, Timestamp.valueOf(message.getSentAt()));
-            stmt.setBoolean(6, message.isRead());
+            stmt.setString(1, toUser);
+            stmt.setInt(2, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp last = rs.getTimestamp("lastMessageAt");
+                    summaries.add(new ConversationSummary(
+                        rs.getString("fromUser"),
+                        rs.getInt("messageCount"),
+                        rs.getInt("unreadCount"),
+                        last != null ? last.toLocalDateTime() : null
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error summarizing conversations for user: " + toUser, e);
+        }
+        
+        return summaries;
+    }
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO messages (id, fromUser, toUser, content, sentAt, isRead) VALUES (?, ?, ?, ?, ?, ?)";
+    
+    @Override
+    public void save(Message message) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
             
+            setInsertParameters(stmt, message);
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException("Error saving message: " + message.getId(), e);
         }
     }
     
+    @Override
+    public void saveAll(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            
+            for (Message message : messages) {
+                setInsertParameters(stmt, message);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error saving " + messages.size() + " messages", e);
+        }
+    }
+    
+    private void setInsertParameters(PreparedStatement stmt, Message message) throws SQLException {
+        stmt.setString(1, message.getId());
+        stmt.setString(2, message.getFromUser());
+        stmt.setString(3, message.getToUser());
+        stmt.setString(4, message.getContent());
+        stmt.setTimestamp(5, Timestamp.valueOf(message.getSentAt()));
+        stmt.setBoolean(6, message.isRead());
+    }
+    
     @Override
     public void update(Message message) {
         String sql = "UPDATE messages SET isRead = ? WHERE id = ?";
@@ -69,6 +193,145 @@ public class MySqlMessageRepository implements MessageRepository {
         }
     }
     
+    @Override
+    public ChangeSet<Message> findChangedSince(String username, LocalDateTime since) {
+        if (since == null) {
+            LocalDateTime version = readVersion();
+            return new ChangeSet<>(findByUser(username), new HashSet<>(), version);
+        }
+        
+        // One range scan per (user, updatedAt) index instead of an OR across both columns
+        String sql = """
+            SELECT id, fromUser, toUser, content, sentAt, isRead FROM messages WHERE toUser = ? AND updatedAt > ?
+            UNION
+            SELECT id, fromUser, toUser, content, sentAt, isRead FROM messages WHERE fromUser = ? AND updatedAt > ?
+            ORDER BY sentAt DESC
+        """;
+        List<Message> messages = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            LocalDateTime version = ChangeSet.readVersion(conn);
+            
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                Timestamp bound = ChangeSet.lowerBound(since);
+                stmt.setString(1, username);
+                stmt.setTimestamp(2, bound);
+                stmt.setString(3, username);
+                stmt.setTimestamp(4, bound);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        messages.add(resultSetToMessage(rs));
+                    }
+                }
+            }
+            return new ChangeSet<>(messages, new HashSet<>(), version);
+        } catch (SQLException e) {
+            throw new DataAccessException("Error finding messages changed since " + since + " for user: " + username, e);
+        }
+    }
+    
+    @Override
+    public ChangeSet<Message> findReceivedChangedSince(String toUser, LocalDateTime since, int firstPageSize) {
+        if (since == null) {
+            LocalDateTime version = readVersion();
+            return new ChangeSet<>(findInboxPage(toUser, null, firstPageSize), new HashSet<>(), version);
+        }
+        
+        String sql = "SELECT id, fromUser, toUser, content, sentAt, isRead FROM messages " +
+            "WHERE toUser = ? AND updatedAt > ? ORDER BY sentAt DESC";
+        List<Message> messages = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            LocalDateTime version = ChangeSet.readVersion(conn);
+            
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, toUser);
+                stmt.setTimestamp(2, ChangeSet.lowerBound(since));
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        messages.add(resultSetToMessage(rs));
+                    }
+                }
+            }
+            return new ChangeSet<>(messages, new HashSet<>(), version);
+        } catch (SQLException e) {
+            throw new DataAccessException("Error finding received messages changed since " + since + " for user: " + toUser, e);
+        }
+    }
+    
+    @Override
+    public Optional<LocalDateTime> findLastChangeTimeFor(String toUser) {
+        // A single probe at the end of the user's slice of idx_messages_toUser_updatedAt
+        String sql = "SELECT MAX(updatedAt) FROM messages WHERE toUser = ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, toUser);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                Timestamp ts = rs.next() ? rs.getTimestamp(1) : null;
+                return Optional.ofNullable(ts).map(Timestamp::toLocalDateTime);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading last message change for user: " + toUser, e);
+        }
+    }
+    
+    private LocalDateTime readVersion() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return ChangeSet.readVersion(conn);
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading message change version", e);
+        }
+    }
+    
+    @Override
+    public int markRead(Collection<String> messageIds, boolean read) {
+        if (messageIds.isEmpty()) {
+            return 0;
+        }
+        // "AND isRead <> ?" skips rows already in that state, so they keep their updatedAt
+        String sql = "UPDATE messages SET isRead = ? WHERE id = ? AND isRead <> ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            for (String id : messageIds) {
+                stmt.setBoolean(1, read);
+                stmt.setString(2, id);
+                stmt.setBoolean(3, read);
+                stmt.addBatch();
+            }
+            int changed = 0;
+            for (int count : stmt.executeBatch()) {
+                if (count > 0) {
+                    changed += count;
+                }
+            }
+            return changed;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error marking " + messageIds.size() + " messages as " + (read ? "read" : "unread"), e);
+        }
+    }
+    
+    @Override
+    public int markAllRead(String toUser) {
+        // Touches only the unread slice of idx_messages_toUser_isRead
+        String sql = "UPDATE messages SET isRead = TRUE WHERE toUser = ? AND isRead = FALSE";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, toUser);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error marking all messages read for user: " + toUser, e);
+        }
+    }
+    
     //Convert ResultSet row to Message object
 
     private Message resultSetToMessage(ResultSet rs) throws SQLException {
@@ -0,0 +1,88 @@
+package dorm.dao;
+
+import dorm.model.ApplicationStatus;
+import dorm.model.StatusEvent;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+
+//Append-only store for application_status_events. Rows are never updated or deleted
+//(other than by the cascade when the application itself goes away).
+public class MySqlStatusEventRepository implements StatusEventRepository {
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO application_status_events (applicationId, status, note, changedAt) VALUES (?, ?, ?, ?)";
+    
+    @Override
+    public void append(StatusEvent event) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            
+            setInsertParameters(stmt, event);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error appending status event for application: " + event.getApplicationId(), e);
+        }
+    }
+    
+    @Override
+    public void appendAll(List<StatusEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            
+            for (StatusEvent event : events) {
+                setInsertParameters(stmt, event);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error appending " + events.size() + " status events", e);
+        }
+    }
+    
+    @Override
+    public List<StatusEvent> findByApplication(String applicationId) {
+        // Served by idx_status_events_application_time (applicationId, changedAt)
+        String sql = """
+            SELECT applicationId, status, note, changedAt
+            FROM application_status_events
+            WHERE applicationId = ?
+            ORDER BY changedAt, id
+        """;
+        List<StatusEvent> events = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, applicationId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    events.add(new StatusEvent(
+                        rs.getString("applicationId"),
+                        ApplicationStatus.valueOf(rs.getString("status")),
+                        rs.getString("note"),
+                        rs.getTimestamp("changedAt").toLocalDateTime()
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading status history for application: " + applicationId, e);
+        }
+        
+        return events;
+    }
+    
+    private void setInsertParameters(PreparedStatement stmt, StatusEvent event) throws SQLException {
+        stmt.setString(1, event.getApplicationId());
+        stmt.setString(2, event.getStatus().name());
+        stmt.setString(3, event.getNote());
+        stmt.setTimestamp(4, Timestamp.valueOf(event.getChangedAt()));
+    }
+}
@@ -4,15 +4,38 @@ import dorm.model.*;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 
 public class MySqlStudentRepository implements StudentRepository {
     
+    // Keep IN (...) lists to a size MySQL plans well and that fits comfortably in one packet
+    private static final int IN_CLAUSE_BATCH = 512;
+    
+    // Explicit column list (instead of SELECT *) so the result shape is fixed and the
+    // statement text stays identical between calls, which lets the driver reuse it.
+    // The password hash is left out: only findByUsername, which login uses, reads it.
+    static final String COLUMNS =
+        "id, username, role, displayName, studentId, gender, college, residency, city, subcity, " +
+        "woreda, sponsorshipType, disabilityInfo, emergencyContactName, emergencyContactPhone, " +
+        "transactionId, assignedBuilding";
+    
+    // Same columns qualified with the "s" alias, for joins
+    static final String QUALIFIED_COLUMNS = "s." + COLUMNS.replace(", ", ", s.");
+    
+    private static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM Student";
+    private static final String SELECT_WITH_PASSWORD_SQL = "SELECT " + COLUMNS + ", password FROM Student";
+    
     @Override
     public Optional<Student> findByStudentId(String studentId) {
-        String sql = "SELECT * FROM Student WHERE studentId = ?";
+        String sql = SELECT_SQL + " WHERE studentId = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -31,9 +54,112 @@ public class MySqlStudentRepository implements StudentRepository {
         return Optional.empty();
     }
     
+    @Override
+    public Optional<Student> findByUsername(String username) {
+        String sql = SELECT_WITH_PASSWORD_SQL + " WHERE username = ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, username);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(resultSetToStudentWithPassword(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error finding student by username: " + username, e);
+        }
+        
+        return Optional.empty();
+    }
+    
+    @Override
+    public Map<String, Student> findByUsernames(Collection<String> usernames) {
+        Map<String, Student> students = new HashMap<>();
+        List<String> distinct = usernames.stream().distinct().toList();
+        if (distinct.isEmpty()) {
+            return students;
+        }
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int from = 0; from < distinct.size(); from += IN_CLAUSE_BATCH) {
+                List<String> batch = distinct.subList(from, Math.min(from + IN_CLAUSE_BATCH, distinct.size()));
+                
+                // Round the placeholder count up to a power of two (repeating the last name) so only
+                // a handful of distinct statements exist and cached ones keep getting reused
+                int slots = Math.min(IN_CLAUSE_BATCH, Math.max(8, Integer.highestOneBit(batch.size() - 1) << 1));
+                String placeholders = String.join(", ", Collections.nCopies(slots, "?"));
+                String sql = SELECT_SQL + " WHERE username IN (" + placeholders + ")";
+                
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < slots; i++) {
+                        stmt.setString(i + 1, batch.get(Math.min(i, batch.size() - 1)));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            Student student = resultSetToStudent(rs);
+                            students.put(student.getUsername(), student);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error finding students by username list", e);
+        }
+        
+        return students;
+    }
+    
+    @Override
+    public Set<String> findExistingStudentIds(Collection<String> studentIds) {
+        return findExisting("studentId", studentIds);
+    }
+    
+    @Override
+    public Set<String> findExistingUsernames(Collection<String> usernames) {
+        return findExisting("username", usernames);
+    }
+    
+    //Which values of a unique column are already present; reads only the index, not the rows
+    
+    private Set<String> findExisting(String column, Collection<String> values) {
+        Set<String> existing = new HashSet<>();
+        List<String> distinct = values.stream().distinct().toList();
+        if (distinct.isEmpty()) {
+            return existing;
+        }
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int from = 0; from < distinct.size(); from += IN_CLAUSE_BATCH) {
+                List<String> batch = distinct.subList(from, Math.min(from + IN_CLAUSE_BATCH, distinct.size()));
+                
+                int slots = Math.min(IN_CLAUSE_BATCH, Math.max(8, Integer.highestOneBit(batch.size() - 1) << 1));
+                String placeholders = String.join(", ", Collections.nCopies(slots, "?"));
+                String sql = "SELECT " + column + " FROM Student WHERE " + column + " IN (" + placeholders + ")";
+                
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < slots; i++) {
+                        stmt.setString(i + 1, batch.get(Math.min(i, batch.size() - 1)));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            existing.add(rs.getString(1));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error checking existing students by " + column, e);
+        }
+        
+        return existing;
+    }
+    
     @Override
     public List<Student> findAll() {
-        String sql = "SELECT * FROM Student";
+        String sql = SELECT_SQL;
         List<Student> students = new ArrayList<>();
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -52,7 +178,7 @@ public class MySqlStudentRepository implements StudentRepository {
     
     @Override
     public List<Student> findByBuilding(String buildingName) {
-        String sql = "SELECT * FROM Student WHERE assignedBuilding = ?";
+        String sql = SELECT_SQL + " WHERE assignedBuilding = ?";
         List<Student> students = new ArrayList<>();
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -72,17 +198,17 @@ public class MySqlStudentRepository implements StudentRepository {
         return students;
     }
     
-    @Override
-    public void save(Student student) {
-        String sql = """
+    private static final String INSERT_SQL = """
             INSERT INTO Student (id, username, password, role, displayName, studentId, gender, college,
                 residency, city, subcity, woreda, sponsorshipType, disabilityInfo,
                 emergencyContactName, emergencyContactPhone, transactionId, assignedBuilding)
             VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
         """;
-        
+    
+    @Override
+    public void save(Student student) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
             
             setStudentParameters(stmt, student);
             stmt.executeUpdate();
@@ -92,44 +218,103 @@ public class MySqlStudentRepository implements StudentRepository {
     }
     
     @Override
-    public void update(Student student) {
-        String sql = """
+    public void saveAll(List<Student> students) {
+        if (students.isEmpty()) {
+            return;
+        }
+        
+        // With rewriteBatchedStatements the driver sends this as multi-row INSERTs
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            
+            for (Student student : students) {
+                setStudentParameters(stmt, student);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error saving " + students.size() + " students", e);
+        }
+    }
+    
+    private static final String UPDATE_SQL = """
             UPDATE Student SET
-                username = ?, password = ?, role = ?, displayName = ?, studentId = ?,
+                username = ?, role = ?, displayName = ?, studentId = ?,
                 gender = ?, college = ?, residency = ?, city = ?, subcity = ?, woreda = ?,
                 sponsorshipType = ?, disabilityInfo = ?, emergencyContactName = ?,
                 emergencyContactPhone = ?, transactionId = ?, assignedBuilding = ?
             WHERE id = ?
         """;
+    
+    @Override
+    public void update(Student student) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+            
+            setStudentUpdateParameters(stmt, student);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error updating student: " + student.getStudentId(), e);
+        }
+    }
+    
+    @Override
+    public void updatePassword(String id, String passwordHash) {
+        String sql = "UPDATE Student SET password = ? WHERE id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, student.getUsername());
-            stmt.setString(2, student.getPassword());
-            stmt.setString(3, student.getRole().name());
-            stmt.setString(4, student.getDisplayName());
-            stmt.setString(5, student.getStudentId());
-            stmt.setString(6, student.getGender() != null ? student.getGender().name() : null);
-            stmt.setString(7, student.getCollege() != null ? student.getCollege().name() : null);
-            stmt.setString(8, student.getResidency() != null ? student.getResidency().name() : null);
-            stmt.setString(9, student.getCity());
-            stmt.setString(10, student.getSubcity());
-            stmt.setString(11, student.getWoreda());
-            stmt.setString(12, student.getSponsorshipType() != null ? student.getSponsorshipType().name() : null);
-            stmt.setString(13, student.getDisabilityInfo());
-            stmt.setString(14, student.getEmergencyContactName());
-            stmt.setString(15, student.getEmergencyContactPhone());
-            stmt.setString(16, student.getTransactionId());
-            stmt.setString(17, student.getAssignedBuilding());
-            stmt.setString(18, student.getId());
-            
+            stmt.setString(1, passwordHash);
+            stmt.setString(2, id);
             stmt.executeUpdate();
         } catch (SQLException e) {
-            throw new DataAccessException("Error updating student: " + student.getStudentId(), e);
+            throw new DataAccessException("Error updating password for student: " + id, e);
         }
     }
     
+    @Override
+    public int[] updateAll(List<Student> students) {
+        if (students.isEmpty()) {
+            return new int[0];
+        }
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+            
+            for (Student student : students) {
+                setStudentUpdateParameters(stmt, student);
+                stmt.addBatch();
+            }
+            return stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error batch updating " + students.size() + " students", e);
+        }
+    }
+    
+    //Set PreparedStatement parameters for student update (id goes last, in the WHERE clause).
+    //The password is never written here; that goes through updatePassword only.
+
+    private void setStudentUpdateParameters(PreparedStatement stmt, Student student) throws SQLException {
+        stmt.setString(1, student.getUsername());
+        stmt.setString(2, student.getRole().name());
+        stmt.setString(3, student.getDisplayName());
+        stmt.setString(4, student.getStudentId());
+        stmt.setString(5, student.getGender() != null ? student.getGender().name() : null);
+        stmt.setString(6, student.getCollege() != null ? student.getCollege().name() : null);
+        stmt.setString(7, student.getResidency() != null ? student.getResidency().name() : null);
+        stmt.setString(8, student.getCity());
+        stmt.setString(9, student.getSubcity());
+        stmt.setString(10, student.getWoreda());
+        stmt.setString(11, student.getSponsorshipType() != null ? student.getSponsorshipType().name() : null);
+        stmt.setString(12, student.getDisabilityInfo());
+        stmt.setString(13, student.getEmergencyContactName());
+        stmt.setString(14, student.getEmergencyContactPhone());
+        stmt.setString(15, student.getTransactionId());
+        stmt.setString(16, student.getAssignedBuilding());
+        stmt.setString(17, student.getId());
+    }
+    
     //Set PreparedStatement parameters for student insert
 
     private void setStudentParameters(PreparedStatement stmt, Student student) throws SQLException {
@@ -153,9 +338,18 @@ public class MySqlStudentRepository implements StudentRepository {
         stmt.setString(18, student.getAssignedBuilding());
     }
     
-    //Convert ResultSet row to Student object
+    //Student from a row selected with SELECT_WITH_PASSWORD_SQL
+
+    private static Student resultSetToStudentWithPassword(ResultSet rs) throws SQLException {
+        Student student = resultSetToStudent(rs);
+        student.setPassword(rs.getString("password"));
+        return student;
+    }
+    
+    //Convert ResultSet row to Student object (also used for JOINed application rows); the
+    //password is not among COLUMNS, so it is left null
 
-    private Student resultSetToStudent(ResultSet rs) throws SQLException {
+    static Student resultSetToStudent(ResultSet rs) throws SQLException {
         Gender gender = null;
         String genderStr = rs.getString("gender");
         if (genderStr != null && !genderStr.isEmpty()) {
@@ -179,7 +373,7 @@ public class MySqlStudentRepository implements StudentRepository {
         Student student = new Student(
             rs.getString("id"),
             rs.getString("username"),
-            rs.getString("password"),
+            null,
             rs.getString("displayName"),
             rs.getString("studentId"),
             gender,
@@ -92,6 +92,21 @@ public class MySqlUserRepository implements UserRepository {
         }
     }
     
+    @Override
+    public void updatePassword(String id, String passwordHash) {
+        String sql = "UPDATE users SET password = ? WHERE id = ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, passwordHash);
+            stmt.setString(2, id);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error updating password for user: " + id, e);
+        }
+    }
+    
     @Override
     public void delete(User user) {
         String sql = "DELETE FROM users WHERE id = ?";
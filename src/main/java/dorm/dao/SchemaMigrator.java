@@ -0,0 +1,553 @@
+package dorm.dao;
+
+import dorm.model.ApplicationStatus;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+//Versioned schema migrations. Each migration runs once, in order, and is recorded in
+//schema_version so upgrades of an existing database only apply what is missing.
+public class SchemaMigrator {
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigrator.class.getName());
+    private static final String LOCK_NAME = "dormitory_db.schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    @FunctionalInterface
+    interface MigrationStep {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    static final class Migration {
+        final int version;
+        final String description;
+        final MigrationStep step;
+
+        Migration(int version, String description, MigrationStep step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    private final List<Migration> migrations = new ArrayList<>();
+
+    public SchemaMigrator() {
+        migrations.add(new Migration(1, "Base tables", SchemaMigrator::createBaseTables));
+        migrations.add(new Migration(2, "Secondary indexes for lookups and filters", SchemaMigrator::createFilterIndexes));
+        migrations.add(new Migration(3, "Append-only application status history", SchemaMigrator::createStatusEvents));
+        migrations.add(new Migration(4, "Index for submitted-date range filter and sort", SchemaMigrator::createSubmittedDateIndex));
+        migrations.add(new Migration(5, "updatedAt change-feed columns and announcement tombstones", SchemaMigrator::createChangeTracking));
+        migrations.add(new Migration(6, "Inbox unread-count and conversation-summary indexes", SchemaMigrator::createInboxIndexes));
+        migrations.add(new Migration(7, "Building bed inventory", SchemaMigrator::createBuildings));
+        migrations.add(new Migration(8, "Per-building occupancy counters", SchemaMigrator::createOccupancyCounters));
+        migrations.add(new Migration(9, "Widen Student.password for salted hashes", SchemaMigrator::widenStudentPassword));
+        migrations.add(new Migration(10, "Leave unassigned students out of occupancy counters", SchemaMigrator::skipUnassignedOccupancy));
+    }
+
+    //Apply every migration newer than the recorded schema version
+
+    public void migrate(Connection conn) throws SQLException {
+        ensureVersionTable(conn);
+
+        // Serialize migrations across application instances starting at the same time
+        if (!acquireLock(conn)) {
+            throw new SQLException("Timed out waiting for schema migration lock");
+        }
+        try {
+            int current = currentVersion(conn);
+            for (Migration migration : migrations) {
+                if (migration.version <= current) {
+                    continue;
+                }
+                LOGGER.info("Applying schema migration V" + migration.version + ": " + migration.description);
+                migration.step.apply(conn);
+                recordVersion(conn, migration);
+            }
+        } finally {
+            releaseLock(conn);
+        }
+    }
+
+    private void ensureVersionTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INT PRIMARY KEY,
+                    description VARCHAR(255) NOT NULL,
+                    appliedAt DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
+                )
+            """);
+        }
+    }
+
+    private int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void recordVersion(Connection conn, Migration migration) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+            stmt.setInt(1, migration.version);
+            stmt.setString(2, migration.description);
+            stmt.executeUpdate();
+        }
+    }
+
+    private boolean acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void releaseLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not release schema migration lock", e);
+        }
+    }
+
+
+    // ---- helpers for migrations ----
+
+    static boolean indexExists(Connection conn, String table, String indexName) throws SQLException {
+        String sql = """
+            SELECT 1 FROM information_schema.statistics
+            WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?
+            LIMIT 1
+        """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            stmt.setString(2, indexName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        String sql = """
+            SELECT 1 FROM information_schema.columns
+            WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?
+            LIMIT 1
+        """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            stmt.setString(2, column);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    static void addColumnIfMissing(Connection conn, String table, String column, String definition) throws SQLException {
+        if (columnExists(conn, table, column)) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+    }
+
+    static void createIndexIfMissing(Connection conn, String table, String indexName, String columns) throws SQLException {
+        if (indexExists(conn, table, indexName)) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX " + indexName + " ON " + table + " (" + columns + ")");
+        }
+    }
+
+    static void dropIndexIfPresent(Connection conn, String table, String indexName) throws SQLException {
+        if (!indexExists(conn, table, indexName)) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP INDEX " + indexName + " ON " + table);
+        }
+    }
+
+
+    static boolean triggerExists(Connection conn, String triggerName) throws SQLException {
+        String sql = """
+            SELECT 1 FROM information_schema.triggers
+            WHERE trigger_schema = DATABASE() AND trigger_name = ?
+            LIMIT 1
+        """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, triggerName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    static void createTriggerIfMissing(Connection conn, String triggerName, String definition) throws SQLException {
+        if (triggerExists(conn, triggerName)) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TRIGGER " + triggerName + " " + definition);
+        }
+    }
+
+    // ---- migrations ----
+
+    private static void createBaseTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS users (
+                    id VARCHAR(36) PRIMARY KEY,
+                    username VARCHAR(50) UNIQUE NOT NULL,
+                    password VARCHAR(255) NOT NULL,
+                    full_name VARCHAR(100),
+                    role ENUM('STUDENT','ADMIN','OWNER','PROCTOR') NOT NULL
+                )
+            """);
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS Student (
+                    id VARCHAR(50) PRIMARY KEY,
+                    username VARCHAR(50) NOT NULL UNIQUE,
+                    password VARCHAR(100) NOT NULL,
+                    role ENUM('STUDENT', 'ADMIN', 'PROCTOR', 'OWNER') NOT NULL DEFAULT 'STUDENT',
+                    displayName VARCHAR(100),
+                    studentId VARCHAR(20) NOT NULL UNIQUE,
+                    gender ENUM('MALE', 'FEMALE'),
+                    college VARCHAR(50),
+                    residency ENUM('ADDIS_ABABA', 'SHEGER_CITY', 'REGIONAL'),
+                    city VARCHAR(50),
+                    subcity VARCHAR(50),
+                    woreda VARCHAR(50),
+                    sponsorshipType ENUM('GOVERNMENT', 'SELF_SPONSORED'),
+                    disabilityInfo VARCHAR(255),
+                    emergencyContactName VARCHAR(100),
+                    emergencyContactPhone VARCHAR(20),
+                    transactionId VARCHAR(50),
+                    assignedBuilding VARCHAR(50) DEFAULT 'unassigned'
+                )
+            """);
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS messages (
+                    id VARCHAR(36) PRIMARY KEY,
+                    fromUser VARCHAR(100) NOT NULL,
+                    toUser VARCHAR(100) NOT NULL,
+                    content TEXT NOT NULL,
+                    sentAt DATETIME NOT NULL,
+                    isRead BOOLEAN DEFAULT FALSE
+                )
+            """);
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS dorm_applications (
+                    id VARCHAR(36) PRIMARY KEY,
+                    studentId VARCHAR(36) NOT NULL,
+                    status ENUM(
+                        'PHASE_ONE_PENDING',
+                        'PHASE_ONE_APPROVED',
+                        'PHASE_ONE_DECLINED',
+                        'PHASE_ONE_RESUBMIT',
+                        'PHASE_TWO_PENDING',
+                        'PHASE_TWO_APPROVED',
+                        'PHASE_TWO_DECLINED',
+                        'ASSIGNED'
+                    ) NOT NULL DEFAULT 'PHASE_ONE_PENDING',
+                    adminNote TEXT,
+                    submittedDate DATE NOT NULL,
+                    responseHistory TEXT,
+                    FOREIGN KEY (studentId) REFERENCES Student(id) ON DELETE CASCADE
+                )
+            """);
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS announcements (
+                    id VARCHAR(36) PRIMARY KEY,
+                    title VARCHAR(255) NOT NULL,
+                    body TEXT NOT NULL,
+                    createdBy VARCHAR(100) NOT NULL,
+                    createdAt DATETIME NOT NULL
+                )
+            """);
+        }
+    }
+
+    private static void createFilterIndexes(Connection conn) throws SQLException {
+        createIndexIfMissing(conn, "dorm_applications", "idx_applications_studentId", "studentId");
+        createIndexIfMissing(conn, "dorm_applications", "idx_applications_status", "status");
+        createIndexIfMissing(conn, "Student", "idx_student_building", "assignedBuilding");
+        createIndexIfMissing(conn, "Student", "idx_student_gender_residency_college", "gender, residency, college");
+        createIndexIfMissing(conn, "messages", "idx_messages_toUser_sentAt", "toUser, sentAt");
+        createIndexIfMissing(conn, "messages", "idx_messages_fromUser_sentAt", "fromUser, sentAt");
+        createIndexIfMissing(conn, "announcements", "idx_announcements_createdAt", "createdAt");
+        createIndexIfMissing(conn, "users", "idx_users_role", "role");
+
+        // Superseded by the (user, sentAt) composites above, which cover the same lookups
+        dropIndexIfPresent(conn, "messages", "idx_messages_toUser");
+        dropIndexIfPresent(conn, "messages", "idx_messages_fromUser");
+    }
+
+    private static void createStatusEvents(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS application_status_events (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    applicationId VARCHAR(36) NOT NULL,
+                    status VARCHAR(32) NOT NULL,
+                    note TEXT,
+                    changedAt DATETIME NOT NULL,
+                    FOREIGN KEY (applicationId) REFERENCES dorm_applications(id) ON DELETE CASCADE
+                )
+            """);
+        }
+        createIndexIfMissing(conn, "application_status_events", "idx_status_events_application_time", "applicationId, changedAt");
+
+        // Latest-response pointer, so lists and exports never need the history
+        addColumnIfMissing(conn, "dorm_applications", "latestResponseStatus", "VARCHAR(32) NULL");
+        addColumnIfMissing(conn, "dorm_applications", "latestResponseAt", "DATETIME NULL");
+
+        if (columnExists(conn, "dorm_applications", "responseHistory")) {
+            migrateResponseHistory(conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE dorm_applications DROP COLUMN responseHistory");
+            }
+        }
+    }
+
+    //Split the old "dd/MM/yyyy_STATUS;..." blobs into event rows and set the pointer from the
+    //last entry. Applications that already have events are skipped, so a rerun is harmless.
+
+    private static void migrateResponseHistory(Connection conn) throws SQLException {
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        String select = """
+            SELECT a.id, a.responseHistory FROM dorm_applications a
+            WHERE a.responseHistory IS NOT NULL AND a.responseHistory <> ''
+              AND NOT EXISTS (SELECT 1 FROM application_status_events e WHERE e.applicationId = a.id)
+        """;
+        String insert = "INSERT INTO application_status_events (applicationId, status, changedAt) VALUES (?, ?, ?)";
+        String pointer = "UPDATE dorm_applications SET latestResponseStatus = ?, latestResponseAt = ? WHERE id = ?";
+
+        try (Statement query = conn.createStatement();
+             ResultSet rs = query.executeQuery(select);
+             PreparedStatement events = conn.prepareStatement(insert);
+             PreparedStatement latest = conn.prepareStatement(pointer)) {
+
+            while (rs.next()) {
+                String applicationId = rs.getString(1);
+                String lastStatus = null;
+                Timestamp lastAt = null;
+
+                for (String entry : rs.getString(2).split(";")) {
+                    int sep = entry.indexOf('_');
+                    if (sep <= 0) {
+                        continue;
+                    }
+                    try {
+                        Timestamp at = Timestamp.valueOf(LocalDate.parse(entry.substring(0, sep).trim(), format).atStartOfDay());
+                        String status = ApplicationStatus.valueOf(entry.substring(sep + 1).trim()).name();
+                        events.setString(1, applicationId);
+                        events.setString(2, status);
+                        events.setTimestamp(3, at);
+                        events.addBatch();
+                        lastStatus = status;
+                        lastAt = at;
+                    } catch (DateTimeParseException | IllegalArgumentException e) {
+                        LOGGER.warning("Skipping unreadable history entry '" + entry + "' on application " + applicationId);
+                    }
+                }
+
+                if (lastStatus != null) {
+                    latest.setString(1, lastStatus);
+                    latest.setTimestamp(2, lastAt);
+                    latest.setString(3, applicationId);
+                    latest.addBatch();
+                }
+            }
+            events.executeBatch();
+            latest.executeBatch();
+        }
+    }
+
+    private static void createSubmittedDateIndex(Connection conn) throws SQLException {
+        createIndexIfMissing(conn, "dorm_applications", "idx_applications_submittedDate", "submittedDate");
+    }
+
+    //Every row carries the database time of its last write, maintained by MySQL itself so no
+    //write path can forget it. Dashboards ask for "updatedAt > last version" instead of reloading.
+
+    private static void createChangeTracking(Connection conn) throws SQLException {
+        String updatedAt = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)";
+        addColumnIfMissing(conn, "Student", "updatedAt", updatedAt);
+        addColumnIfMissing(conn, "dorm_applications", "updatedAt", updatedAt);
+        addColumnIfMissing(conn, "messages", "updatedAt", updatedAt);
+        addColumnIfMissing(conn, "announcements", "updatedAt", updatedAt);
+        addColumnIfMissing(conn, "announcements", "deletedAt", "DATETIME(6) NULL");
+
+        createIndexIfMissing(conn, "Student", "idx_student_updatedAt", "updatedAt");
+        createIndexIfMissing(conn, "dorm_applications", "idx_applications_updatedAt", "updatedAt");
+        createIndexIfMissing(conn, "messages", "idx_messages_toUser_updatedAt", "toUser, updatedAt");
+        createIndexIfMissing(conn, "messages", "idx_messages_fromUser_updatedAt", "fromUser, updatedAt");
+        createIndexIfMissing(conn, "announcements", "idx_announcements_updatedAt", "updatedAt");
+    }
+
+    private static void createInboxIndexes(Connection conn) throws SQLException {
+        // Unread badge: counts only the (toUser, unread) slice
+        createIndexIfMissing(conn, "messages", "idx_messages_toUser_isRead", "toUser, isRead");
+        // Conversation summaries: covering index, so GROUP BY fromUser never touches the rows
+        createIndexIfMissing(conn, "messages", "idx_messages_toUser_fromUser", "toUser, fromUser, sentAt, isRead");
+    }
+
+    //Beds per building, for capacity-aware allocation. Students still reference buildings by
+    //name, so existing free-text assignments keep working.
+
+    private static void createBuildings(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS buildings (
+                    name VARCHAR(50) PRIMARY KEY,
+                    gender ENUM('MALE', 'FEMALE') NOT NULL,
+                    capacity INT NOT NULL,
+                    accessibleBeds INT NOT NULL DEFAULT 0
+                )
+            """);
+        }
+    }
+
+    //Residents per building, kept current by triggers on Student so that every write path,
+    //including ones made outside the app, moves the counters in the same transaction. Reads
+    //become a primary-key lookup instead of counting Student rows.
+
+    private static void createOccupancyCounters(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS building_occupancy (
+                    building VARCHAR(50) PRIMARY KEY,
+                    residents INT NOT NULL DEFAULT 0
+                )
+            """);
+        }
+
+        createTriggerIfMissing(conn, "trg_student_occupancy_insert", """
+            AFTER INSERT ON Student FOR EACH ROW
+            BEGIN
+                IF NEW.assignedBuilding IS NOT NULL THEN
+                    INSERT INTO building_occupancy (building, residents) VALUES (NEW.assignedBuilding, 1)
+                    ON DUPLICATE KEY UPDATE residents = residents + 1;
+                END IF;
+            END
+        """);
+        createTriggerIfMissing(conn, "trg_student_occupancy_update", """
+            AFTER UPDATE ON Student FOR EACH ROW
+            BEGIN
+                IF NOT (OLD.assignedBuilding <=> NEW.assignedBuilding) THEN
+                    IF OLD.assignedBuilding IS NOT NULL THEN
+                        UPDATE building_occupancy SET residents = residents - 1 WHERE building = OLD.assignedBuilding;
+                    END IF;
+                    IF NEW.assignedBuilding IS NOT NULL THEN
+                        INSERT INTO building_occupancy (building, residents) VALUES (NEW.assignedBuilding, 1)
+                        ON DUPLICATE KEY UPDATE residents = residents + 1;
+                    END IF;
+                END IF;
+            END
+        """);
+        createTriggerIfMissing(conn, "trg_student_occupancy_delete", """
+            AFTER DELETE ON Student FOR EACH ROW
+            BEGIN
+                IF OLD.assignedBuilding IS NOT NULL THEN
+                    UPDATE building_occupancy SET residents = residents - 1 WHERE building = OLD.assignedBuilding;
+                END IF;
+            END
+        """);
+
+        // Seed from the rows that exist today
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                INSERT INTO building_occupancy (building, residents)
+                SELECT assignedBuilding, COUNT(*) FROM Student
+                WHERE assignedBuilding IS NOT NULL
+                GROUP BY assignedBuilding
+                ON DUPLICATE KEY UPDATE residents = VALUES(residents)
+            """);
+        }
+    }
+
+    //Passwords are stored as PBKDF2 hashes (see PasswordHasher); give Student the same room as
+    //users so a stronger format later does not need another migration. Existing plaintext rows
+    //are rehashed as their owners log in.
+
+    private static void widenStudentPassword(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE Student MODIFY password VARCHAR(255) NOT NULL");
+        }
+    }
+
+    //'' and the column default 'unassigned' mean no building, but version 8 counted them, which
+    //made one counter row that every new or unassigned student updated so all of those writes
+    //queued on it. Replace the triggers and drop the counter rows they built up; real buildings
+    //were counted right.
+
+    private static void skipUnassignedOccupancy(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TRIGGER IF EXISTS trg_student_occupancy_insert");
+            stmt.execute("DROP TRIGGER IF EXISTS trg_student_occupancy_update");
+            stmt.execute("DROP TRIGGER IF EXISTS trg_student_occupancy_delete");
+        }
+
+        createTriggerIfMissing(conn, "trg_student_occupancy_insert", """
+            AFTER INSERT ON Student FOR EACH ROW
+            BEGIN
+                IF NEW.assignedBuilding IS NOT NULL AND NEW.assignedBuilding NOT IN ('', 'unassigned') THEN
+                    INSERT INTO building_occupancy (building, residents) VALUES (NEW.assignedBuilding, 1)
+                    ON DUPLICATE KEY UPDATE residents = residents + 1;
+                END IF;
+            END
+        """);
+        createTriggerIfMissing(conn, "trg_student_occupancy_update", """
+            AFTER UPDATE ON Student FOR EACH ROW
+            BEGIN
+                IF NOT (OLD.assignedBuilding <=> NEW.assignedBuilding) THEN
+                    IF OLD.assignedBuilding IS NOT NULL AND OLD.assignedBuilding NOT IN ('', 'unassigned') THEN
+                        UPDATE building_occupancy SET residents = residents - 1 WHERE building = OLD.assignedBuilding;
+                    END IF;
+                    IF NEW.assignedBuilding IS NOT NULL AND NEW.assignedBuilding NOT IN ('', 'unassigned') THEN
+                        INSERT INTO building_occupancy (building, residents) VALUES (NEW.assignedBuilding, 1)
+                        ON DUPLICATE KEY UPDATE residents = residents + 1;
+                    END IF;
+                END IF;
+            END
+        """);
+        createTriggerIfMissing(conn, "trg_student_occupancy_delete", """
+            AFTER DELETE ON Student FOR EACH ROW
+            BEGIN
+                IF OLD.assignedBuilding IS NOT NULL AND OLD.assignedBuilding NOT IN ('', 'unassigned') THEN
+                    UPDATE building_occupancy SET residents = residents - 1 WHERE building = OLD.assignedBuilding;
+                END IF;
+            END
+        """);
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM building_occupancy WHERE building IN ('', 'unassigned')");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package dorm.dao;
+
+import dorm.model.StatusEvent;
+
+import java.util.List;
+
+public interface StatusEventRepository {
+    //Append one status event
+    void append(StatusEvent event);
+    
+    //Append many status events in one JDBC batch
+    void appendAll(List<StatusEvent> events);
+    
+    //Full history of one application, oldest first
+    List<StatusEvent> findByApplication(String applicationId);
+}
@@ -1,14 +1,29 @@
 package dorm.dao;
 
 import dorm.model.Student;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 
 public interface StudentRepository {
     //Find a student by student ID
     Optional<Student> findByStudentId(String studentId);
     
+    //Find a student by login username
+    Optional<Student> findByUsername(String username);
+    
+    //Find many students by username in one round trip, keyed by username
+    Map<String, Student> findByUsernames(Collection<String> usernames);
+    
+    //Which of the given student IDs are already registered
+    Set<String> findExistingStudentIds(Collection<String> studentIds);
+    
+    //Which of the given usernames are already taken by students
+    Set<String> findExistingUsernames(Collection<String> usernames);
+    
     //Find all students
     List<Student> findAll();
     
@@ -18,6 +33,16 @@ public interface StudentRepository {
     //Save or update a student     
     void save(Student student);
     
+    //Insert many new students in one JDBC batch
+    void saveAll(List<Student> students);
+    
     //Update student information
     void update(Student student);
+    
+    //Store a new password hash for a student, leaving the rest of the row alone; update
+    //never writes the password, so this is the only way to change it
+    void updatePassword(String id, String passwordHash);
+    
+    //Update many students in one JDBC batch; returns the per-row update counts
+    int[] updateAll(List<Student> students);
 }
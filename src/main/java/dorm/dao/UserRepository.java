@@ -19,6 +19,9 @@ public interface UserRepository {
     //Save a new user
     void save(User user);
     
+    //Store a new password hash for a user
+    void updatePassword(String id, String passwordHash);
+    
     //Delete a user
     void delete(User user);
 }
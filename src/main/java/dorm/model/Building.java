@@ -0,0 +1,40 @@
+package dorm.model;
+
+//A dormitory building in the bed inventory. Students are assigned to a building by name
+//(Student.assignedBuilding); accessibleBeds is the part of capacity in rooms suitable for
+//students with a disability (ground floor, step-free).
+
+public class Building {
+    private final String name;
+    private final Gender gender;
+    private final int capacity;
+    private final int accessibleBeds;
+
+    public Building(String name, Gender gender, int capacity, int accessibleBeds) {
+        this.name = name;
+        this.gender = gender;
+        this.capacity = capacity;
+        this.accessibleBeds = Math.min(accessibleBeds, capacity);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Gender getGender() {
+        return gender;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getAccessibleBeds() {
+        return accessibleBeds;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + gender + ", " + capacity + " beds)";
+    }
+}
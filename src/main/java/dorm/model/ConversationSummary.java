@@ -0,0 +1,35 @@
+package dorm.model;
+
+import java.time.LocalDateTime;
+
+//One row of an inbox overview: everything a user received from one sender, summarized
+
+public class ConversationSummary {
+    private final String fromUser;
+    private final int messageCount;
+    private final int unreadCount;
+    private final LocalDateTime lastMessageAt;
+
+    public ConversationSummary(String fromUser, int messageCount, int unreadCount, LocalDateTime lastMessageAt) {
+        this.fromUser = fromUser;
+        this.messageCount = messageCount;
+        this.unreadCount = unreadCount;
+        this.lastMessageAt = lastMessageAt;
+    }
+
+    public String getFromUser() {
+        return fromUser;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    public int getUnreadCount() {
+        return unreadCount;
+    }
+
+    public LocalDateTime getLastMessageAt() {
+        return lastMessageAt;
+    }
+}
@@ -1,6 +1,7 @@
 package dorm.model;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class DormApplication {
@@ -10,15 +11,28 @@ public class DormApplication {
     private final Student student;
     private ApplicationStatus status;
     private String adminNote;
-    private String submittedDate;      // Date application was submitted
-    private String responseHistory;    // Format: "30/12/2025_DECLINED;31/12/2025_APPROVED"
+    private LocalDate submittedDate;   // Date application was submitted
+    // Latest admin response; the full history lives in application_status_events
+    private ApplicationStatus latestResponseStatus;
+    private LocalDateTime latestResponseAt;
 
     public DormApplication(String id, Student student) {
         this.id = id;
         this.student = student;
         this.status = ApplicationStatus.PHASE_ONE_PENDING;
-        this.submittedDate = LocalDate.now().format(DATE_FORMAT);
-        this.responseHistory = "";
+        this.submittedDate = LocalDate.now();
+    }
+
+    //Copy of this application around the given student (use student.copy() for a fully independent one)
+
+    public DormApplication copyFor(Student student) {
+        DormApplication copy = new DormApplication(id, student);
+        copy.status = status;
+        copy.adminNote = adminNote;
+        copy.submittedDate = submittedDate;
+        copy.latestResponseStatus = latestResponseStatus;
+        copy.latestResponseAt = latestResponseAt;
+        return copy;
     }
 
     public String getId() {
@@ -45,40 +59,42 @@ public class DormApplication {
         this.adminNote = adminNote;
     }
 
-    public String getSubmittedDate() {
+    public LocalDate getSubmittedDate() {
         return submittedDate;
     }
 
-    public void setSubmittedDate(String submittedDate) {
+    public void setSubmittedDate(LocalDate submittedDate) {
         this.submittedDate = submittedDate;
     }
 
-    public String getResponseHistory() {
-        return responseHistory;
+    public ApplicationStatus getLatestResponseStatus() {
+        return latestResponseStatus;
     }
 
-    public void setResponseHistory(String responseHistory) {
-        this.responseHistory = responseHistory;
+    public LocalDateTime getLatestResponseAt() {
+        return latestResponseAt;
     }
 
-    // Add a response entry to history
-     
-    public void addResponseEntry(ApplicationStatus status) {
-        String entry = LocalDate.now().format(DATE_FORMAT) + "_" + status.name();
-        if (responseHistory == null || responseHistory.isEmpty()) {
-            responseHistory = entry;
-        } else {
-            responseHistory = responseHistory + ";" + entry;
-        }
+    public void setLatestResponse(ApplicationStatus status, LocalDateTime at) {
+        this.latestResponseStatus = status;
+        this.latestResponseAt = at;
     }
 
-    //Get the latest response entry
-    
+    //Record an admin response: moves the latest-response pointer and returns the
+    //event the caller appends to the history table
+
+    public StatusEvent recordResponse(ApplicationStatus status, String note) {
+        LocalDateTime now = LocalDateTime.now();
+        setLatestResponse(status, now);
+        return new StatusEvent(id, status, note, now);
+    }
+
+    //Latest response as "dd/MM/yyyy_STATUS", or null if nobody has responded yet
+
     public String getLatestResponse() {
-        if (responseHistory == null || responseHistory.isEmpty()) {
+        if (latestResponseStatus == null || latestResponseAt == null) {
             return null;
         }
-        String[] entries = responseHistory.split(";");
-        return entries[entries.length - 1];
+        return latestResponseAt.toLocalDate().format(DATE_FORMAT) + "_" + latestResponseStatus.name();
     }
 }
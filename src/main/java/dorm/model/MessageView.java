@@ -0,0 +1,36 @@
+package dorm.model;
+
+//A message with its sender already resolved for display, so table cells never hit the database
+
+public class MessageView {
+    private final Message message;
+    private final String senderName;
+    private final String senderStudentId;   // null when the sender is staff
+
+    public MessageView(Message message, String senderName, String senderStudentId) {
+        this.message = message;
+        this.senderName = senderName;
+        this.senderStudentId = senderStudentId;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public String getSenderName() {
+        return senderName;
+    }
+
+    public String getSenderStudentId() {
+        return senderStudentId;
+    }
+
+    //"Name (UGR/1234/15)" for students, the raw username otherwise
+
+    public String getSenderLabel() {
+        if (senderStudentId == null) {
+            return senderName;
+        }
+        return senderName + " (" + senderStudentId + ")";
+    }
+}
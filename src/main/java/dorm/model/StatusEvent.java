@@ -0,0 +1,35 @@
+package dorm.model;
+
+import java.time.LocalDateTime;
+
+//One entry in an application's status history. Events are only ever appended.
+
+public class StatusEvent {
+    private final String applicationId;
+    private final ApplicationStatus status;
+    private final String note;
+    private final LocalDateTime changedAt;
+
+    public StatusEvent(String applicationId, ApplicationStatus status, String note, LocalDateTime changedAt) {
+        this.applicationId = applicationId;
+        this.status = status;
+        this.note = note;
+        this.changedAt = changedAt;
+    }
+
+    public String getApplicationId() {
+        return applicationId;
+    }
+
+    public ApplicationStatus getStatus() {
+        return status;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+}
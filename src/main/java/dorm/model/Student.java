@@ -28,6 +28,24 @@ public class Student extends User {
         this.college = college;
         this.assignedBuilding = "unassigned";
     }
+    
+    //Independent copy, so a cached student is never changed through another caller's reference
+    
+    @Override
+    public Student copy() {
+        Student copy = new Student(getId(), getUsername(), getPassword(), getDisplayName(), studentId, gender, college);
+        copy.residency = residency;
+        copy.city = city;
+        copy.subcity = subcity;
+        copy.woreda = woreda;
+        copy.sponsorshipType = sponsorshipType;
+        copy.disabilityInfo = disabilityInfo;
+        copy.emergencyContactName = emergencyContactName;
+        copy.emergencyContactPhone = emergencyContactPhone;
+        copy.transactionId = transactionId;
+        copy.assignedBuilding = assignedBuilding;
+        return copy;
+    }
 
     public String getStudentId() {
         return studentId;
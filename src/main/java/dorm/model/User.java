@@ -41,6 +41,12 @@ public class User {
         return displayName;
     }
 
+    //Independent copy, so a cached user is never changed through another caller's reference
+
+    public User copy() {
+        return new User(id, username, password, role, displayName);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
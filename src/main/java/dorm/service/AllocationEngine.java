@@ -0,0 +1,221 @@
+package dorm.service;
+
+import dorm.model.Building;
+import dorm.model.DormApplication;
+import dorm.model.Gender;
+import dorm.model.Residency;
+import dorm.model.SponsorshipType;
+import dorm.model.Student;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+
+//Places approved applicants into buildings in one pass, in memory. Applicants are ranked
+//(disability first, then regional over Sheger City over Addis Ababa residents, government over
+//self-sponsored, then earliest submission) and each takes a bed in the building of their gender
+//with the most free beds, which spreads students evenly. Students with a disability are placed
+//first into accessible beds; accessible beds left over afterwards go to everyone else. If the
+//accessible beds run out, the remaining students with a disability still get a general bed
+//ahead of everyone else, and the plan lists them so an admin can arrange something suitable.
+//Sorting plus one heap operation per applicant keeps tens of thousands of applicants well under
+//a second; nothing is written here.
+public class AllocationEngine {
+
+    //Outcome of a planning run: who goes where, and who could not be placed and why
+
+    public static class Plan {
+        private final Map<DormApplication, String> assignments = new LinkedHashMap<>();
+        private final Map<DormApplication, String> unplaced = new LinkedHashMap<>();
+        private final Set<DormApplication> needsAccessibleBed = new LinkedHashSet<>();
+
+        public Map<DormApplication, String> getAssignments() {
+            return Collections.unmodifiableMap(assignments);
+        }
+
+        public Map<DormApplication, String> getUnplaced() {
+            return Collections.unmodifiableMap(unplaced);
+        }
+
+        //Applicants with a disability who were given a general bed because no accessible one was free
+
+        public Set<DormApplication> getNeedsAccessibleBed() {
+            return Collections.unmodifiableSet(needsAccessibleBed);
+        }
+
+        //"Building: n" lines for a confirmation dialog
+
+        public String summarize() {
+            Map<String, Integer> perBuilding = new TreeMap<>();
+            for (String building : assignments.values()) {
+                perBuilding.merge(building, 1, Integer::sum);
+            }
+            StringBuilder sb = new StringBuilder();
+            sb.append(assignments.size()).append(" applicant(s) placed");
+            for (Map.Entry<String, Integer> entry : perBuilding.entrySet()) {
+                sb.append('\n').append(entry.getKey()).append(": ").append(entry.getValue());
+            }
+            if (!needsAccessibleBed.isEmpty()) {
+                sb.append("\n\n").append(needsAccessibleBed.size())
+                  .append(" applicant(s) with a disability got a general bed (no accessible bed left)");
+            }
+            if (!unplaced.isEmpty()) {
+                sb.append("\n\n").append(unplaced.size()).append(" applicant(s) could not be placed");
+            }
+            return sb.toString();
+        }
+    }
+
+    // Free beds of one building during a run
+    private static final class Beds {
+        final String name;
+        int accessible;
+        int general;
+
+        Beds(Building building, int occupied) {
+            this.name = building.getName();
+            // Existing residents are counted against general beds first
+            int free = Math.max(0, building.getCapacity() - occupied);
+            this.accessible = Math.min(building.getAccessibleBeds(), free);
+            this.general = free - accessible;
+        }
+    }
+
+    static final Comparator<DormApplication> PRIORITY = Comparator
+        .comparing((DormApplication app) -> !hasDisability(app.getStudent()))
+        .thenComparingInt(app -> residencyRank(app.getStudent().getResidency()))
+        .thenComparingInt(app -> sponsorshipRank(app.getStudent().getSponsorshipType()))
+        .thenComparing(DormApplication::getSubmittedDate, Comparator.nullsLast(Comparator.<LocalDate>naturalOrder()))
+        .thenComparing(app -> app.getStudent().getStudentId(), Comparator.nullsLast(Comparator.<String>naturalOrder()));
+
+    //Plan placements for applicants given the inventory and current residents per building
+
+    public Plan plan(List<DormApplication> applicants, List<Building> buildings, Map<String, Integer> occupancy) {
+        Plan plan = new Plan();
+
+        Map<String, Beds> bedsByName = new HashMap<>();
+        Map<Gender, List<Beds>> bedsByGender = new EnumMap<>(Gender.class);
+        for (Building building : buildings) {
+            Beds beds = new Beds(building, occupancy.getOrDefault(building.getName(), 0));
+            bedsByName.put(building.getName(), beds);
+            bedsByGender.computeIfAbsent(building.getGender(), g -> new ArrayList<>()).add(beds);
+        }
+
+        List<DormApplication> ranked = new ArrayList<>(applicants);
+        ranked.sort(PRIORITY);
+
+        Map<Gender, List<DormApplication>> disabled = new EnumMap<>(Gender.class);
+        Map<Gender, List<DormApplication>> others = new EnumMap<>(Gender.class);
+        for (DormApplication app : ranked) {
+            Student student = app.getStudent();
+            String current = student.getAssignedBuilding();
+            if (current != null && bedsByName.containsKey(current)) {
+                // Already has a bed (and is counted in occupancy); just confirm it
+                plan.assignments.put(app, current);
+            } else if (student.getGender() == null) {
+                plan.unplaced.put(app, "gender not recorded");
+            } else if (!bedsByGender.containsKey(student.getGender())) {
+                plan.unplaced.put(app, "no " + student.getGender().name().toLowerCase(Locale.ROOT) + " building");
+            } else {
+                (hasDisability(student) ? disabled : others)
+                    .computeIfAbsent(student.getGender(), g -> new ArrayList<>()).add(app);
+            }
+        }
+
+        for (Map.Entry<Gender, List<Beds>> entry : bedsByGender.entrySet()) {
+            List<Beds> pool = entry.getValue();
+            List<DormApplication> waiting = place(disabled.getOrDefault(entry.getKey(), List.of()), pool, true, plan);
+            plan.needsAccessibleBed.addAll(waiting);
+
+            // Whatever accessible beds are still free now go to everyone; students with a
+            // disability still waiting rank ahead of the rest, so they take general beds first
+            for (Beds beds : pool) {
+                beds.general += beds.accessible;
+                beds.accessible = 0;
+            }
+            waiting.addAll(others.getOrDefault(entry.getKey(), List.of()));
+            place(waiting, pool, false, plan);
+        }
+        return plan;
+    }
+
+    //Give each applicant, in rank order, a bed in the building with the most free beds. In the
+    //accessible pass, applicants left without a bed are returned for the general pass; in the
+    //general pass they are recorded as unplaced.
+
+    private static List<DormApplication> place(List<DormApplication> applicants, List<Beds> pool,
+                                               boolean accessible, Plan plan) {
+        List<DormApplication> left = new ArrayList<>();
+        if (applicants.isEmpty()) {
+            return left;
+        }
+        Comparator<Beds> mostFree = Comparator
+            .comparingInt((Beds b) -> accessible ? b.accessible : b.general).reversed()
+            .thenComparing(b -> b.name);
+        PriorityQueue<Beds> heap = new PriorityQueue<>(mostFree);
+        for (Beds beds : pool) {
+            if ((accessible ? beds.accessible : beds.general) > 0) {
+                heap.add(beds);
+            }
+        }
+
+        for (DormApplication app : applicants) {
+            Beds beds = heap.poll();
+            if (beds == null) {
+                if (accessible) {
+                    left.add(app);
+                } else {
+                    plan.needsAccessibleBed.remove(app);
+                    plan.unplaced.put(app, hasDisability(app.getStudent()) ? "no accessible or general bed left" : "no bed left");
+                }
+                continue;
+            }
+            plan.assignments.put(app, beds.name);
+            int free = accessible ? --beds.accessible : --beds.general;
+            if (free > 0) {
+                heap.add(beds);
+            }
+        }
+        return left;
+    }
+
+    //Disability info is free text from the form; treat blanks and "none"-style answers as no
+
+    static boolean hasDisability(Student student) {
+        String info = student.getDisabilityInfo();
+        if (info == null || info.isBlank()) {
+            return false;
+        }
+        String value = info.trim().toLowerCase(Locale.ROOT);
+        return !(value.equals("none") || value.equals("no") || value.equals("n/a") || value.equals("-"));
+    }
+
+    private static int residencyRank(Residency residency) {
+        if (residency == null) return 3;
+        return switch (residency) {
+            case REGIONAL -> 0;
+            case SHEGER_CITY -> 1;
+            case ADDIS_ABABA -> 2;
+        };
+    }
+
+    private static int sponsorshipRank(SponsorshipType sponsorship) {
+        if (sponsorship == null) return 2;
+        return switch (sponsorship) {
+            case GOVERNMENT -> 0;
+            case SELF_SPONSORED -> 1;
+        };
+    }
+}
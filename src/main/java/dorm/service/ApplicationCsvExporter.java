@@ -0,0 +1,188 @@
+package dorm.service;
+
+import dorm.dao.ApplicationQuery;
+import dorm.dao.ApplicationRepository;
+import dorm.dao.DataAccessException;
+import dorm.model.DormApplication;
+import dorm.model.Student;
+import dorm.util.CsvHelper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+
+//Writes applications to CSV. Filtered exports stream straight from a JDBC cursor into a
+//buffered file channel, so the whole result set is never held in memory. Output goes to a
+//temporary file that replaces the target only once it is complete.
+public class ApplicationCsvExporter {
+
+    //Progress callback, invoked on the exporting thread
+
+    @FunctionalInterface
+    public interface Progress {
+        void update(int written, int total);
+    }
+
+    public static class Result {
+        private final int rows;
+        private final long bytes;
+        private final long millis;
+
+        Result(int rows, long bytes, long millis) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.millis = millis;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
+
+    private static final String[] HEADER_FIELDS = {
+        "Name", "Student ID", "Gender", "Sponsorship", "Residency", "City", "Subcity", "Woreda",
+        "Status", "Submitted", "Last Response", "Building", "Transaction ID"
+    };
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_EVERY = 500;
+
+    private final ApplicationRepository applicationRepository;
+
+    public ApplicationCsvExporter(ApplicationRepository applicationRepository) {
+        this.applicationRepository = applicationRepository;
+    }
+
+    //Export every application matching the query's filters, in its sort order (paging ignored)
+
+    public Result export(ApplicationQuery query, Path target, Progress progress) {
+        long start = System.currentTimeMillis();
+        int total = applicationRepository.countMatching(query);
+        progress.update(0, total);
+
+        Path temp = createTempFile(target);
+        try {
+            int[] written = {0};
+            try (CsvHelper.CsvWriter writer = openWriter(temp)) {
+                writer.record(HEADER_FIELDS);
+
+                applicationRepository.forEachMatching(query, app -> {
+                    writeRow(writer, app);
+                    if (++written[0] % PROGRESS_EVERY == 0) {
+                        progress.update(written[0], Math.max(total, written[0]));
+                    }
+                });
+            }
+            long bytes = commit(temp, target);
+            progress.update(written[0], Math.max(total, written[0]));
+            return new Result(written[0], bytes, System.currentTimeMillis() - start);
+        } catch (IOException | UncheckedIOException e) {
+            throw new DataAccessException("export", target.getFileName().toString(), e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    //Export an already loaded list (e.g. the rows selected in the table); needs no database
+
+    public static Result export(List<DormApplication> applications, Path target) {
+        long start = System.currentTimeMillis();
+        Path temp = createTempFile(target);
+        try {
+            try (CsvHelper.CsvWriter writer = openWriter(temp)) {
+                writer.record(HEADER_FIELDS);
+                for (DormApplication app : applications) {
+                    writeRow(writer, app);
+                }
+            }
+            long bytes = commit(temp, target);
+            return new Result(applications.size(), bytes, System.currentTimeMillis() - start);
+        } catch (IOException | UncheckedIOException e) {
+            throw new DataAccessException("export", target.getFileName().toString(), e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    //Append one row field by field; no per-row format string or intermediate line
+
+    private static void writeRow(CsvHelper.CsvWriter writer, DormApplication app) {
+        Student s = app.getStudent();
+        try {
+            writer.field(s.getDisplayName())
+                .field(s.getStudentId())
+                .field(s.getGender() != null ? s.getGender().name() : "-")
+                .field(s.getSponsorshipType() != null ? s.getSponsorshipType().name() : "-")
+                .field(s.getResidency() != null ? s.getResidency().name() : "-")
+                .field(orDash(s.getCity()))
+                .field(orDash(s.getSubcity()))
+                .field(orDash(s.getWoreda()))
+                .field(app.getStatus().name())
+                .field(app.getSubmittedDate() != null ? app.getSubmittedDate().format(DATE_FORMAT) : "-")
+                .field(orDash(app.getLatestResponse()))
+                .field(orDash(s.getAssignedBuilding()))
+                .field(orDash(s.getTransactionId()))
+                .endRecord();
+        } catch (IOException e) {
+            // Surfaces through the repository's row callback, which cannot throw IOException
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String orDash(String value) {
+        return value == null || value.isBlank() ? "-" : value;
+    }
+
+    private static CsvHelper.CsvWriter openWriter(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new CsvHelper.CsvWriter(new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+
+    private static Path createTempFile(Path target) {
+        Path dir = target.toAbsolutePath().getParent();
+        try {
+            return Files.createTempFile(dir, ".export-", ".csv.tmp");
+        } catch (IOException e) {
+            throw new DataAccessException("create", "temporary export file in " + dir, e);
+        }
+    }
+
+    //Move the finished file into place; readers never see a half-written export
+
+    private static long commit(Path temp, Path target) throws IOException {
+        long bytes = Files.size(temp);
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return bytes;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // best effort - a stray temp file is harmless
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package dorm.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+
+//Runs DatabaseDormService calls on a small worker pool so the UI thread never waits on MySQL.
+//Returned futures are completed on the callback executor (Platform::runLater in the app),
+//so thenAccept/whenComplete stages attached by a controller run on the FX thread.
+public class AsyncDormService {
+
+    private final DatabaseDormService service;
+    private final Executor callbackExecutor;
+    private final ThreadPoolExecutor workers;
+    private final ChangeWatcher watcher;
+    private final ReadStateBuffer readStates;
+    private final LoginRateLimiter loginLimiter;
+
+    public AsyncDormService(DatabaseDormService service, Executor callbackExecutor, int threads, int queueCapacity,
+                            ChangeWatcher watcher, ReadStateBuffer readStates, LoginRateLimiter loginLimiter) {
+        this.service = service;
+        this.callbackExecutor = callbackExecutor;
+        this.watcher = watcher;
+        this.readStates = readStates;
+        this.loginLimiter = loginLimiter;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+            threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            task -> {
+                Thread thread = new Thread(task, "dorm-db-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    //The wrapped service, for callers that are already off the UI thread
+
+    public DatabaseDormService getService() {
+        return service;
+    }
+
+    //Background poller that screens subscribe to for new messages and announcements
+
+    public ChangeWatcher getWatcher() {
+        return watcher;
+    }
+
+    //Write-behind buffer that message read checkboxes record their toggles in
+
+    public ReadStateBuffer getReadStates() {
+        return readStates;
+    }
+
+    //Per-username throttle the login screen checks before any authenticate call is queued
+
+    public LoginRateLimiter getLoginLimiter() {
+        return loginLimiter;
+    }
+
+    //Run a service call on a worker thread. Cancelling the future before the call starts
+    //skips it; cancelling it afterwards discards the result.
+
+    public <T> CompletableFuture<T> supply(Function<DatabaseDormService, T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            workers.execute(() -> {
+                if (result.isDone()) {
+                    return; // cancelled while queued
+                }
+                try {
+                    T value = call.apply(service);
+                    callbackExecutor.execute(() -> result.complete(value));
+                } catch (Throwable t) {
+                    callbackExecutor.execute(() -> result.completeExceptionally(t));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new IllegalStateException("Too many pending database requests", e));
+        }
+        return result;
+    }
+
+    public CompletableFuture<Void> run(Consumer<DatabaseDormService> call) {
+        return supply(s -> {
+            call.accept(s);
+            return null;
+        });
+    }
+
+    //A slot holding at most one live request: submitting a new one cancels the previous,
+    //so results of superseded searches or page loads never reach the screen
+
+    public <T> Latest<T> latest() {
+        return new Latest<>();
+    }
+
+    public final class Latest<T> {
+        private CompletableFuture<T> current;
+
+        private Latest() {
+        }
+
+        public synchronized CompletableFuture<T> submit(Function<DatabaseDormService, T> call) {
+            cancel();
+            current = supply(call);
+            return current;
+        }
+
+        public synchronized void cancel() {
+            if (current != null) {
+                current.cancel(false);
+                current = null;
+            }
+        }
+    }
+
+    public void shutdown() {
+        watcher.shutdown();
+        workers.shutdownNow();
+        readStates.shutdown();
+    }
+
+    //True if a stage failed only because its request was superseded or cancelled
+
+    public static boolean isCancellation(Throwable error) {
+        return unwrap(error) instanceof CancellationException;
+    }
+
+    //Strip the CompletionException/ExecutionException wrappers added by dependent stages
+
+    public static Throwable unwrap(Throwable error) {
+        Throwable current = error;
+        while ((current instanceof CompletionException || current instanceof ExecutionException)
+                && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+}
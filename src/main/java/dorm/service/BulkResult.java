@@ -0,0 +1,141 @@
+package dorm.service;
+
+import dorm.model.DormApplication;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Per-application outcome of a bulk action (approve, decline, resubmit, assign)
+
+public class BulkResult {
+
+    public enum Outcome {
+        UPDATED,    // written to the database
+        SKIPPED,    // not eligible in its current status, or changed by someone else meanwhile
+        FAILED      // eligible, but the write did not happen
+    }
+
+    public static class Entry {
+        private final DormApplication application;
+        private final Outcome outcome;
+        private final String reason;
+
+        Entry(DormApplication application, Outcome outcome, String reason) {
+            this.application = application;
+            this.outcome = outcome;
+            this.reason = reason;
+        }
+
+        public DormApplication getApplication() {
+            return application;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        //"Name (reason)" for alerts
+
+        public String describe() {
+            String name = application.getStudent().getDisplayName();
+            return reason == null ? name : name + " (" + reason + ")";
+        }
+    }
+
+    // Rows named in a summary per outcome; the rest are only counted, so the alert stays readable
+    static final int SUMMARY_ROWS = 10;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    void updated(DormApplication application) {
+        entries.add(new Entry(application, Outcome.UPDATED, null));
+    }
+
+    void skipped(DormApplication application, String reason) {
+        entries.add(new Entry(application, Outcome.SKIPPED, reason));
+    }
+
+    void failed(DormApplication application, String reason) {
+        entries.add(new Entry(application, Outcome.FAILED, reason));
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    public List<Entry> getEntries(Outcome outcome) {
+        List<Entry> matching = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.getOutcome() == outcome) {
+                matching.add(entry);
+            }
+        }
+        return matching;
+    }
+
+    public int getUpdatedCount() {
+        return count(Outcome.UPDATED);
+    }
+
+    public int getSkippedCount() {
+        return count(Outcome.SKIPPED);
+    }
+
+    public int getFailedCount() {
+        return count(Outcome.FAILED);
+    }
+
+    //Human-readable summary, e.g. "Approved 12 application(s)", then for skipped and failed rows
+    //a count per reason and the first few names
+
+    public String summarize(String verb) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(verb).append(' ').append(getUpdatedCount()).append(" application(s)");
+        appendDetails(sb, Outcome.SKIPPED, "Skipped");
+        appendDetails(sb, Outcome.FAILED, "Failed");
+        return sb.toString();
+    }
+
+    private void appendDetails(StringBuilder sb, Outcome outcome, String label) {
+        List<Entry> matching = getEntries(outcome);
+        if (matching.isEmpty()) {
+            return;
+        }
+        sb.append("\n\n").append(label).append(' ').append(matching.size()).append(":");
+
+        Map<String, Integer> byReason = new LinkedHashMap<>();
+        for (Entry entry : matching) {
+            byReason.merge(entry.getReason() == null ? "no reason given" : entry.getReason(), 1, Integer::sum);
+        }
+        if (matching.size() > SUMMARY_ROWS || byReason.size() > 1) {
+            for (Map.Entry<String, Integer> reason : byReason.entrySet()) {
+                sb.append('\n').append(reason.getValue()).append(" x ").append(reason.getKey());
+            }
+            sb.append('\n');
+        }
+
+        for (Entry entry : matching.subList(0, Math.min(SUMMARY_ROWS, matching.size()))) {
+            sb.append('\n').append(entry.describe());
+        }
+        if (matching.size() > SUMMARY_ROWS) {
+            sb.append("\n... and ").append(matching.size() - SUMMARY_ROWS).append(" more");
+        }
+    }
+
+    private int count(Outcome outcome) {
+        int count = 0;
+        for (Entry entry : entries) {
+            if (entry.getOutcome() == outcome) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
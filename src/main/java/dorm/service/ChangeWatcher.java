@@ -0,0 +1,181 @@
+package dorm.service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+//Polls the database in the background for new announcements and incoming messages and tells
+//subscribers when something changed, so screens update without anyone pressing Refresh.
+//Each poll is one index probe per topic (MAX(updatedAt)); subscribers then fetch the delta
+//themselves. Failed polls back off exponentially up to maxBackoffMillis. Listeners run on the
+//callback executor (Platform::runLater in the app).
+public class ChangeWatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(ChangeWatcher.class.getName());
+
+    //Handle returned by the subscribe methods; cancel it when the screen goes away
+
+    public interface Subscription {
+        void cancel();
+    }
+
+    private final class Watch implements Subscription {
+        final String username;      // null for announcements
+        final Runnable listener;
+        volatile boolean cancelled;
+
+        Watch(String username, Runnable listener) {
+            this.username = username;
+            this.listener = listener;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            watches.remove(this);
+        }
+    }
+
+    private final DatabaseDormService service;
+    private final Executor callbackExecutor;
+    private final long intervalMillis;
+    private final long maxBackoffMillis;
+    private final ScheduledExecutorService scheduler;
+    private final List<Watch> watches = new CopyOnWriteArrayList<>();
+
+    // Last change time seen per topic; absent until the first successful poll
+    private LocalDateTime lastAnnouncementChange;
+    private final Map<String, Optional<LocalDateTime>> lastMessageChange = new ConcurrentHashMap<>();
+    private boolean announcementsSeen;
+    private int consecutiveFailures;
+    private volatile boolean stopped;
+
+    public ChangeWatcher(DatabaseDormService service, Executor callbackExecutor, long intervalMillis, long maxBackoffMillis) {
+        this.service = service;
+        this.callbackExecutor = callbackExecutor;
+        this.intervalMillis = intervalMillis;
+        this.maxBackoffMillis = Math.max(intervalMillis, maxBackoffMillis);
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "dorm-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+    }
+
+    //Begin polling; an interval of zero or less leaves the watcher switched off
+
+    public void start() {
+        if (intervalMillis > 0) {
+            scheduler.schedule(this::poll, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void shutdown() {
+        stopped = true;
+        scheduler.shutdownNow();
+    }
+
+    //Run listener whenever an announcement is posted, edited or deleted
+
+    public Subscription onAnnouncementsChanged(Runnable listener) {
+        Watch watch = new Watch(null, listener);
+        watches.add(watch);
+        return watch;
+    }
+
+    //Run listener whenever a message to username arrives or changes
+
+    public Subscription onMessagesChanged(String username, Runnable listener) {
+        Watch watch = new Watch(Objects.requireNonNull(username), listener);
+        watches.add(watch);
+        return watch;
+    }
+
+    private void poll() {
+        long delay = intervalMillis;
+        try {
+            // Nobody listening: skip the queries but keep the schedule
+            if (!watches.isEmpty()) {
+                checkAnnouncements();
+                checkMessages();
+            }
+            if (consecutiveFailures > 0) {
+                LOGGER.info("Change polling recovered after " + consecutiveFailures + " failed attempt(s)");
+            }
+            consecutiveFailures = 0;
+        } catch (RuntimeException e) {
+            consecutiveFailures++;
+            delay = Math.min(maxBackoffMillis, intervalMillis << Math.min(consecutiveFailures, 16));
+            if (consecutiveFailures == 1) {
+                LOGGER.log(Level.WARNING, "Change polling failed, backing off", e);
+            }
+        }
+
+        if (!stopped) {
+            scheduler.schedule(this::poll, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void checkAnnouncements() {
+        boolean watched = watches.stream().anyMatch(w -> w.username == null);
+        if (!watched) {
+            announcementsSeen = false;
+            return;
+        }
+
+        LocalDateTime latest = service.getLastAnnouncementChange().orElse(null);
+        boolean changed = announcementsSeen && !Objects.equals(latest, lastAnnouncementChange);
+        lastAnnouncementChange = latest;
+        announcementsSeen = true;
+        if (changed) {
+            notify(null);
+        }
+    }
+
+    private void checkMessages() {
+        Set<String> usernames = new HashSet<>();
+        for (Watch watch : watches) {
+            if (watch.username != null) {
+                usernames.add(watch.username);
+            }
+        }
+        // Forget users nobody watches any more
+        lastMessageChange.keySet().retainAll(usernames);
+
+        for (String username : usernames) {
+            Optional<LocalDateTime> latest = service.getLastIncomingMessageChange(username);
+            Optional<LocalDateTime> previous = lastMessageChange.put(username, latest);
+            if (previous != null && !previous.equals(latest)) {
+                notify(username);
+            }
+        }
+    }
+
+    private void notify(String username) {
+        for (Watch watch : watches) {
+            if (Objects.equals(watch.username, username)) {
+                callbackExecutor.execute(() -> {
+                    if (!watch.cancelled) {
+                        watch.listener.run();
+                    }
+                });
+            }
+        }
+    }
+}
@@ -2,51 +2,122 @@ package dorm.service;
 
 import dorm.dao.*;
 import dorm.model.*;
+import dorm.util.PasswordHasher;
+import dorm.util.Validation;
 
+import java.nio.file.Path;
+import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 public class DatabaseDormService {
+    public static final int INBOX_PAGE_SIZE = 100;
+    
     private final UserRepository userRepository;
     private final StudentRepository studentRepository;
     private final ApplicationRepository applicationRepository;
     private final AnnouncementRepository announcementRepository;
     private final MessageRepository messageRepository;
+    private final StatusEventRepository statusEventRepository;
+    private final BuildingRepository buildingRepository;
+    private final ApplicationCsvExporter exporter;
+    private final StudentCsvImporter importer;
+    private final AllocationEngine allocationEngine;
+    private final StatisticsService statistics;
+    private final PasswordHasher passwordHasher;
     
     public DatabaseDormService(
             UserRepository userRepository,
             StudentRepository studentRepository,
             ApplicationRepository applicationRepository,
             AnnouncementRepository announcementRepository,
-            MessageRepository messageRepository) {
+            MessageRepository messageRepository,
+            StatusEventRepository statusEventRepository,
+            BuildingRepository buildingRepository) {
         
         this.userRepository = userRepository;
         this.studentRepository = studentRepository;
         this.applicationRepository = applicationRepository;
         this.announcementRepository = announcementRepository;
         this.messageRepository = messageRepository;
+        this.statusEventRepository = statusEventRepository;
+        this.buildingRepository = buildingRepository;
+        this.exporter = new ApplicationCsvExporter(applicationRepository);
+        this.passwordHasher = createPasswordHasher();
+        this.importer = new StudentCsvImporter(studentRepository, applicationRepository, userRepository, passwordHasher);
+        this.allocationEngine = new AllocationEngine();
+        this.statistics = new StatisticsService(applicationRepository, StatisticsService.configuredTtlMillis());
     }
     
     
     
+    //Work factor from security.passwordIterations in db.properties
+    
+    private static PasswordHasher createPasswordHasher() {
+        String value = DatabaseConnection.getConfiguration()
+            .getProperty("security.passwordIterations", String.valueOf(PasswordHasher.DEFAULT_ITERATIONS));
+        try {
+            return new PasswordHasher(Integer.parseInt(value.trim()));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid security.passwordIterations in db.properties, using default: " + e.getMessage());
+            return new PasswordHasher();
+        }
+    }
+    
+    //Check a login. Staff accounts are tried first; if the password does not match, a student
+    //with the same username is tried next. Unknown usernames still cost one hash, so response
+    //time does not reveal which accounts exist. Plaintext or weaker hashes are replaced after a
+    //successful login.
+    
     public Optional<Object> authenticate(String username, String password) {
-        Optional<User> user = userRepository.findByUsername(username)
-                .filter(u -> u.getPassword().equals(password));
-        if (user.isPresent()) {
+        Optional<User> user = userRepository.findByUsername(username);
+        if (user.isPresent() && passwordHasher.verify(password, user.get().getPassword())) {
+            rehashIfNeeded(user.get(), password, userRepository::updatePassword);
             return Optional.of(user.get());
         }
         
-        for (Student student : studentRepository.findAll()) {
-            if (student.getUsername().equals(username) && student.getPassword().equals(password)) {
-                return Optional.of(student);
+        Optional<Student> student = studentRepository.findByUsername(username);
+        if (student.isPresent()) {
+            if (!passwordHasher.verify(password, student.get().getPassword())) {
+                return Optional.empty();
             }
+            rehashIfNeeded(student.get(), password, studentRepository::updatePassword);
+            return Optional.of(student.get());
         }
         
+        if (!user.isPresent()) {
+            passwordHasher.verifyDummy(password);
+        }
         return Optional.empty();
     }
     
+    //Upgrade a stored password once we know it is right; a failure only delays the upgrade
+    
+    private void rehashIfNeeded(User account, String password, BiConsumer<String, String> store) {
+        if (!passwordHasher.needsRehash(account.getPassword())) {
+            return;
+        }
+        String hash = passwordHasher.hash(password);
+        try {
+            store.accept(account.getId(), hash);
+            account.setPassword(hash);
+        } catch (DataAccessException e) {
+            System.err.println("Could not upgrade password hash for " + account.getUsername() + ": " + e.getMessage());
+        }
+    }
+    
     
 
     public boolean isUsernameAvailable(String username) {
@@ -56,13 +127,7 @@ public class DatabaseDormService {
         }
         
         // Check in students
-        for (Student s : studentRepository.findAll()) {
-            if (s.getUsername().equals(username)) {
-                return false;
-            }
-        }
-        
-        return true;
+        return studentRepository.findByUsername(username).isEmpty();
     }
     
 
@@ -115,7 +180,7 @@ public class DatabaseDormService {
         Student student = new Student(
             UUID.randomUUID().toString(),
             username,
-            password,
+            passwordHasher.hash(password),
             fullName,
             studentId,
             gender,
@@ -190,12 +255,59 @@ public class DatabaseDormService {
     public List<DormApplication> getApplications() {
         return applicationRepository.findAll();
     }
+    
+    public ApplicationPage getApplicationPage(ApplicationQuery query) {
+        return applicationRepository.findPage(query);
+    }
+    
+    //Stream every application matching the filters to a CSV file (call off the UI thread)
+    
+    public ApplicationCsvExporter.Result exportApplications(ApplicationQuery query, Path target,
+                                                            ApplicationCsvExporter.Progress progress) {
+        return exporter.export(query, target, progress);
+    }
+    
+    //Bulk-load a registrar student list; rows that cannot be imported go to rejectFile (call off the UI thread)
+    
+    public StudentCsvImporter.Result importStudents(Path source, Path rejectFile, StudentCsvImporter.Progress progress) {
+        try {
+            return importer.importFile(source, rejectFile, progress);
+        } finally {
+            statistics.invalidate();
+        }
+    }
+    
+    //Counts by status, college, gender, residency and sponsorship for the admin dashboard
+    //(cached for a few seconds, see StatisticsService)
+    
+    public ApplicationStatistics getApplicationStatistics() {
+        return statistics.getApplicationStatistics();
+    }
 
+    //Applications (or their students) changed since a dashboard's last version
+    
+    public ChangeSet<DormApplication> getApplicationChanges(LocalDateTime since) {
+        return applicationRepository.findChangedSince(since);
+    }
+    
+    //Apply an admin response: the application row and its history event are written together
+    
     public void changeApplicationStatus(DormApplication application, ApplicationStatus newStatus, String note) {
         application.setStatus(newStatus);
         application.setAdminNote(note);
-        application.addResponseEntry(newStatus);
-        applicationRepository.update(application);
+        StatusEvent event = application.recordResponse(newStatus, note);
+        DatabaseConnection.inTransaction(() -> {
+            applicationRepository.update(application);
+            statusEventRepository.append(event);
+            return null;
+        });
+        statistics.invalidate();
+    }
+    
+    //Full response history of an application, oldest first
+    
+    public List<StatusEvent> getStatusHistory(DormApplication application) {
+        return statusEventRepository.findByApplication(application.getId());
     }
     
     public void approvePhaseOne(DormApplication application, String note) {
@@ -234,13 +346,258 @@ public class DatabaseDormService {
                status == ApplicationStatus.PHASE_TWO_PENDING;
     }
     
-    public void assignBuilding(Student student, String buildingName) {
-        student.setAssignedBuilding(buildingName);
-        studentRepository.update(student);
+    //Assign one student through the bulk path, so the building and the ASSIGNED status are
+    //written in one transaction and only from phase two (otherwise reported as skipped)
+    
+    public BulkResult assignBuilding(Student student, String buildingName) {
+        Optional<DormApplication> application = applicationRepository.findByStudent(student);
+        Validation.require(application.isPresent(), student.getDisplayName() + " has no application");
+        return assignBuildings(List.of(application.get()), app -> buildingName);
+    }
+
+    
+    // bulk actions: eligible rows are written in one JDBC batch inside a single
+    // transaction; ineligible rows are reported as skipped and left untouched
+    
+    public BulkResult approveApplications(List<DormApplication> applications, String note) {
+        return applyTransition(applications, note, status -> switch (status) {
+            case PHASE_ONE_PENDING, PHASE_ONE_DECLINED, PHASE_ONE_RESUBMIT -> ApplicationStatus.PHASE_ONE_APPROVED;
+            case PHASE_TWO_PENDING, PHASE_TWO_DECLINED -> ApplicationStatus.PHASE_TWO_APPROVED;
+            default -> null;
+        }, eligible -> { });
+    }
+    
+    public BulkResult declineApplications(List<DormApplication> applications, String note) {
+        return applyTransition(applications, note, status -> switch (status) {
+            case PHASE_ONE_PENDING, PHASE_ONE_APPROVED, PHASE_ONE_RESUBMIT -> ApplicationStatus.PHASE_ONE_DECLINED;
+            case PHASE_TWO_PENDING, PHASE_TWO_APPROVED -> ApplicationStatus.PHASE_TWO_DECLINED;
+            default -> null;
+        }, eligible -> { });
+    }
+    
+    //Ask students to resubmit; the notification messages go out in the same transaction
+    
+    public BulkResult requestResubmitApplications(List<DormApplication> applications, String reason, String fromUser) {
+        String message = "Resubmit required: " + reason.replaceAll("[\\r\\n]+", " ");
+        if (message.length() > 80) {
+            message = message.substring(0, 77) + "...";
+        }
+        String content = message;
+        
+        return applyTransition(applications, reason, status -> switch (status) {
+            case PHASE_ONE_PENDING, PHASE_ONE_DECLINED, PHASE_ONE_APPROVED -> ApplicationStatus.PHASE_ONE_RESUBMIT;
+            default -> null;
+        }, eligible -> {
+            List<Message> messages = new ArrayList<>(eligible.size());
+            LocalDateTime now = LocalDateTime.now();
+            for (DormApplication app : eligible) {
+                messages.add(new Message(UUID.randomUUID().toString(), fromUser,
+                        app.getStudent().getUsername(), content, now));
+            }
+            messageRepository.saveAll(messages);
+        });
+    }
+    
+    public BulkResult assignBuilding(List<DormApplication> applications, String buildingName) {
+        return assignBuildings(applications, app -> buildingName);
+    }
+    
+    // manage the building inventory
+    
+    public List<Building> getBuildings() {
+        return buildingRepository.findAll();
+    }
+    
+    public Optional<Building> findBuilding(String name) {
+        return buildingRepository.findByName(name);
+    }
+    
+    //Beds still free in a building, or empty if it is not in the inventory
+    
+    public Optional<Integer> getFreeBeds(String buildingName) {
+        return buildingRepository.findByName(buildingName)
+            .map(b -> Math.max(0, b.getCapacity() - buildingRepository.findOccupancy(buildingName)));
+    }
+    
+    public void saveBuilding(Building building) {
+        Validation.require(building.getName() != null && !building.getName().isBlank(), "Building name is required");
+        Validation.require(building.getGender() != null, "Building gender is required");
+        Validation.require(building.getCapacity() >= 0 && building.getAccessibleBeds() >= 0, "Bed counts cannot be negative");
+        buildingRepository.save(building);
+    }
+    
+    public void deleteBuilding(Building building) {
+        buildingRepository.delete(building);
+    }
+    
+    //Residents per building name, from the trigger-maintained counters
+    
+    public Map<String, Integer> getBuildingOccupancy() {
+        return buildingRepository.findOccupancy();
+    }
+    
+    public int getBuildingOccupancy(String buildingName) {
+        return buildingRepository.findOccupancy(buildingName);
+    }
+    
+    //Recount residents and repair drifted counters; returns how many were corrected
+    
+    public int reconcileOccupancy() {
+        return DatabaseConnection.inTransaction(buildingRepository::reconcileOccupancy);
+    }
+    
+    //Work out where every PHASE_TWO_APPROVED applicant would go, without writing anything
+    
+    public AllocationEngine.Plan planAllocation() {
+        ApplicationQuery query = new ApplicationQuery();
+        query.setStatus(ApplicationStatus.PHASE_TWO_APPROVED);
+        List<DormApplication> approved = new ArrayList<>();
+        applicationRepository.forEachMatching(query, approved::add);
+        
+        return allocationEngine.plan(approved, buildingRepository.findAll(), buildingRepository.findOccupancy());
+    }
+    
+    //Write a plan: every placed applicant becomes ASSIGNED in one transaction and batch;
+    //applicants the plan could not place are reported as skipped with the reason
+    
+    public BulkResult applyAllocation(AllocationEngine.Plan plan) {
+        Map<DormApplication, String> assignments = plan.getAssignments();
+        BulkResult result = assignBuildings(new ArrayList<>(assignments.keySet()), assignments::get);
+        for (Map.Entry<DormApplication, String> entry : plan.getUnplaced().entrySet()) {
+            result.skipped(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+    
+    private BulkResult assignBuildings(List<DormApplication> applications, Function<DormApplication, String> buildingOf) {
+        Map<Student, String> previousBuildings = new IdentityHashMap<>();
         
-        applicationRepository.findByStudent(student).ifPresent(application -> {
-            changeApplicationStatus(application, ApplicationStatus.ASSIGNED, "");
+        BulkResult result = applyTransition(applications, "", status -> switch (status) {
+            case PHASE_TWO_PENDING, PHASE_TWO_APPROVED -> ApplicationStatus.ASSIGNED;
+            default -> null;
+        }, written -> {
+            // Only applications the batch moved to ASSIGNED get a building
+            List<Student> students = new ArrayList<>(written.size());
+            for (DormApplication app : written) {
+                Student student = app.getStudent();
+                previousBuildings.put(student, student.getAssignedBuilding());
+                student.setAssignedBuilding(buildingOf.apply(app));
+                students.add(student);
+            }
+            studentRepository.updateAll(students);
         });
+        
+        // Buildings were set in memory only for written rows; if the transaction then rolled
+        // back (every row FAILED) the database kept the old ones, so put them back here too
+        for (BulkResult.Entry entry : result.getEntries(BulkResult.Outcome.FAILED)) {
+            Student student = entry.getApplication().getStudent();
+            if (previousBuildings.containsKey(student)) {
+                student.setAssignedBuilding(previousBuildings.get(student));
+            }
+        }
+        return result;
+    }
+    
+    //Shared bulk path. transition maps a current status to the new one (null = not eligible);
+    //alsoWrite runs inside the same transaction with only the rows the batch actually updated
+    
+    private BulkResult applyTransition(List<DormApplication> applications, String note,
+                                       UnaryOperator<ApplicationStatus> transition,
+                                       Consumer<List<DormApplication>> alsoWrite) {
+        BulkResult result = new BulkResult();
+        List<DormApplication> eligible = new ArrayList<>();
+        List<ApplicationStatus> expected = new ArrayList<>();
+        List<Snapshot> previous = new ArrayList<>();
+        List<StatusEvent> events = new ArrayList<>();
+        
+        for (DormApplication app : applications) {
+            ApplicationStatus target = transition.apply(app.getStatus());
+            if (target == null) {
+                result.skipped(app, app.getStatus().name());
+                continue;
+            }
+            eligible.add(app);
+            expected.add(app.getStatus());
+            previous.add(new Snapshot(app));
+            
+            app.setStatus(target);
+            app.setAdminNote(note);
+            events.add(app.recordResponse(target, note));
+        }
+        
+        if (eligible.isEmpty()) {
+            return result;
+        }
+        
+        int[] counts;
+        try {
+            counts = DatabaseConnection.inTransaction(() -> {
+                int[] updated = applicationRepository.updateAll(eligible, expected);
+                
+                // History and side writes only for rows that were updated (the event FK would
+                // reject the rest, and a vanished application must not get messages or a building)
+                List<DormApplication> written = new ArrayList<>(updated.length);
+                List<StatusEvent> writtenEvents = new ArrayList<>(updated.length);
+                for (int i = 0; i < updated.length; i++) {
+                    if (isWritten(updated[i])) {
+                        written.add(eligible.get(i));
+                        writtenEvents.add(events.get(i));
+                    }
+                }
+                statusEventRepository.appendAll(writtenEvents);
+                if (!written.isEmpty()) {
+                    alsoWrite.accept(written);
+                }
+                return updated;
+            });
+        } catch (DataAccessException e) {
+            // Whole transaction rolled back: restore every row we touched
+            for (int i = 0; i < eligible.size(); i++) {
+                previous.get(i).restore(eligible.get(i));
+                result.failed(eligible.get(i), e.getMessage());
+            }
+            return result;
+        }
+        statistics.invalidate();
+        
+        for (int i = 0; i < eligible.size(); i++) {
+            if (isWritten(counts[i])) {
+                result.updated(eligible.get(i));
+            } else {
+                // Its stored status is no longer the one we judged eligibility on (or it is gone)
+                previous.get(i).restore(eligible.get(i));
+                result.skipped(eligible.get(i), "changed concurrently, reload and try again");
+            }
+        }
+        return result;
+    }
+    
+    //SUCCESS_NO_INFO (-2) means the driver ran the row but did not report a count
+    
+    private static boolean isWritten(int updateCount) {
+        return updateCount > 0 || updateCount == Statement.SUCCESS_NO_INFO;
+    }
+    
+    //In-memory state of an application before a bulk action, for rolling back on failure
+    
+    private static final class Snapshot {
+        private final ApplicationStatus status;
+        private final String note;
+        private final ApplicationStatus latestResponseStatus;
+        private final LocalDateTime latestResponseAt;
+        
+        Snapshot(DormApplication app) {
+            this.status = app.getStatus();
+            this.note = app.getAdminNote();
+            this.latestResponseStatus = app.getLatestResponseStatus();
+            this.latestResponseAt = app.getLatestResponseAt();
+        }
+        
+        void restore(DormApplication app) {
+            app.setStatus(status);
+            app.setAdminNote(note);
+            app.setLatestResponse(latestResponseStatus, latestResponseAt);
+        }
     }
 
     
@@ -254,7 +611,10 @@ public class DatabaseDormService {
         return userRepository.findByRole(role);
     }
     
+    //Store a new staff account; its password arrives as typed and is hashed here
+    
     public void addUser(User user) {
+        user.setPassword(passwordHasher.hash(user.getPassword()));
         userRepository.save(user);
     }
     
@@ -281,6 +641,16 @@ public class DatabaseDormService {
         return announcementRepository.findAll();
     }
     
+    //Announcements added, edited or deleted since a dashboard's last version (null = all)
+    
+    public ChangeSet<Announcement> getAnnouncementChanges(LocalDateTime since) {
+        return announcementRepository.findChangedSince(since);
+    }
+    
+    public Optional<LocalDateTime> getLastAnnouncementChange() {
+        return announcementRepository.findLastChangeTime();
+    }
+    
     public void updateAnnouncement(Announcement announcement) {
         announcementRepository.update(announcement);
     }
@@ -308,17 +678,70 @@ public class DatabaseDormService {
         return messageRepository.findByUser(username);
     }
     
+    //One page of a user's inbox (newest first, continuing after olderThan), senders resolved in one batch
+    
+    public List<MessageView> getInboxPage(String username, Message olderThan, int limit) {
+        return toMessageViews(messageRepository.findInboxPage(username, olderThan, limit));
+    }
+    
+    public int getUnreadMessageCount(String username) {
+        return messageRepository.countUnread(username);
+    }
+    
+    public List<ConversationSummary> getConversationSummaries(String username, int limit) {
+        return messageRepository.findConversations(username, limit);
+    }
+    
+    public ChangeSet<Message> getMessageChanges(String username, LocalDateTime since) {
+        return messageRepository.findChangedSince(username, since);
+    }
+    
+    public Optional<LocalDateTime> getLastIncomingMessageChange(String username) {
+        return messageRepository.findLastChangeTimeFor(username);
+    }
+    
+    //Received messages written or toggled since a version, senders resolved as above.
+    //With no version yet this is the newest inbox page; older pages come from getInboxPage.
+    
+    public ChangeSet<MessageView> getReceivedMessageChanges(String username, LocalDateTime since) {
+        ChangeSet<Message> changes = messageRepository.findReceivedChangedSince(username, since, INBOX_PAGE_SIZE);
+        return new ChangeSet<>(toMessageViews(changes.getChanged()), changes.getRemovedIds(), changes.getVersion());
+    }
+    
+    private List<MessageView> toMessageViews(List<Message> messages) {
+        Set<String> senders = messages.stream()
+                .map(Message::getFromUser)
+                .collect(Collectors.toSet());
+        Map<String, Student> students = studentRepository.findByUsernames(senders);
+        
+        List<MessageView> views = new ArrayList<>(messages.size());
+        for (Message m : messages) {
+            Student s = students.get(m.getFromUser());
+            if (s != null) {
+                views.add(new MessageView(m, s.getDisplayName(), s.getStudentId()));
+            } else {
+                views.add(new MessageView(m, m.getFromUser(), null));
+            }
+        }
+        return views;
+    }
+    
     public void markMessageAsRead(Message message, boolean read) {
         message.setRead(read);
         messageRepository.update(message);
     }
+    
+    //Set the read flag on many messages at once (see ReadStateBuffer for coalesced toggles)
+    
+    public int markMessagesRead(Collection<String> messageIds, boolean read) {
+        return messageRepository.markRead(messageIds, read);
+    }
+    
+    public int markAllMessagesRead(String username) {
+        return messageRepository.markAllRead(username);
+    }
 
     public Optional<Student> findStudentByUsername(String username) {
-        for (Student s : studentRepository.findAll()) {
-            if (s.getUsername().equals(username)) {
-                return Optional.of(s);
-            }
-        }
-        return Optional.empty();
+        return studentRepository.findByUsername(username);
     }
 }
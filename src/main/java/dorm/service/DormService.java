@@ -1,33 +1,56 @@
 package dorm.service;
 
 import dorm.model.*;
+import dorm.util.PasswordHasher;
 
 import java.util.Optional;
 
 
 public class DormService {
     private final DormRepository repository;
+    private final PasswordHasher passwordHasher;
 
     public DormService(DormRepository repository) {
+        this(repository, new PasswordHasher());
+    }
+
+    public DormService(DormRepository repository, PasswordHasher passwordHasher) {
         this.repository = repository;
+        this.passwordHasher = passwordHasher;
     }
 
+    //Same rules as DatabaseDormService.authenticate: staff first, then students,
+    //constant-time checks, and the seeded plaintext passwords are replaced with hashes on first login
+
     public Optional<Object> authenticate(String username, String password) {
         Optional<User> user = repository.findUserByUsername(username);
-        if (user.isPresent() && user.get().getPassword().equals(password)) {
+        if (user.isPresent() && verify(user.get(), password)) {
             return Optional.of(user.get());
         }
 
         Optional<Student> student = repository.findStudentByUsername(username);
-        if (student.isPresent() && student.get().getPassword().equals(password)) {
-            return Optional.of(student.get());
+        if (student.isPresent()) {
+            return verify(student.get(), password) ? Optional.of(student.get()) : Optional.empty();
         }
 
+        if (!user.isPresent()) {
+            passwordHasher.verifyDummy(password);
+        }
         return Optional.empty();
     }
 
+    private boolean verify(User account, String password) {
+        if (!passwordHasher.verify(password, account.getPassword())) {
+            return false;
+        }
+        if (passwordHasher.needsRehash(account.getPassword())) {
+            account.setPassword(passwordHasher.hash(password));
+        }
+        return true;
+    }
+
     public Student registerStudent(String username, String password, String fullName, String studentId, Gender gender) {
-        Student student = new Student(java.util.UUID.randomUUID().toString(), username, password, fullName, studentId, gender, null);
+        Student student = new Student(java.util.UUID.randomUUID().toString(), username, passwordHasher.hash(password), fullName, studentId, gender, null);
         repository.saveStudent(student);
         return student;
     }
@@ -0,0 +1,174 @@
+package dorm.service;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+
+//Throttles login attempts per username before they reach the database. Each username has a
+//token bucket (a burst of attempts, then one more per refill interval) and a failure count
+//that locks the name out for a while once too many wrong passwords arrive in a row. Buckets
+//are guarded by a fixed set of striped locks instead of one global lock, and idle ones are
+//swept out periodically so a spray of random usernames does not grow the map for ever.
+public class LoginRateLimiter {
+
+    private static final Logger LOGGER = Logger.getLogger(LoginRateLimiter.class.getName());
+
+    private static final int STRIPES = 64;
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int burst;
+    private final long refillNanos;
+    private final int lockoutFailures;
+    private final long lockoutNanos;
+    private final long idleNanos;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[STRIPES];
+    private final AtomicLong nextSweep;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder lockouts = new LongAdder();
+
+    // Guarded by the stripe lock of its username
+    private static final class Bucket {
+        double tokens;
+        long refilledAt;
+        int failures;
+        long lockedUntil;
+
+        Bucket(int burst, long now) {
+            this.tokens = burst;
+            this.refilledAt = now;
+        }
+    }
+
+    public LoginRateLimiter(int burst, long refillMillis, int lockoutFailures, long lockoutMillis) {
+        this.burst = Math.max(1, burst);
+        this.refillNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, refillMillis));
+        this.lockoutFailures = Math.max(1, lockoutFailures);
+        this.lockoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lockoutMillis));
+        // A bucket untouched this long is full again and not locked, so forgetting it changes nothing
+        this.idleNanos = Math.max(this.refillNanos * this.burst, this.lockoutNanos);
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.nextSweep = new AtomicLong(System.nanoTime() + SWEEP_INTERVAL_NANOS);
+    }
+
+    //Take one attempt for username. Returns 0 if it may go ahead, otherwise the number of
+    //milliseconds until the next attempt would be allowed.
+
+    public long tryAcquire(String username) {
+        long now = System.nanoTime();
+        sweepIfDue(now);
+
+        String key = key(username);
+        synchronized (lockFor(key)) {
+            Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(burst, now));
+            if (bucket.lockedUntil - now > 0) {
+                rejected.increment();
+                return toMillis(bucket.lockedUntil - now);
+            }
+
+            refill(bucket, now);
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                allowed.increment();
+                return 0;
+            }
+            rejected.increment();
+            return toMillis((long) ((1 - bucket.tokens) * refillNanos));
+        }
+    }
+
+    //A wrong password; enough of them in a row lock the username out
+
+    public void recordFailure(String username) {
+        long now = System.nanoTime();
+        String key = key(username);
+        synchronized (lockFor(key)) {
+            Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(burst, now));
+            if (++bucket.failures >= lockoutFailures) {
+                bucket.failures = 0;
+                bucket.lockedUntil = now + lockoutNanos;
+                lockouts.increment();
+                LOGGER.warning("Login for '" + key + "' locked for " + toMillis(lockoutNanos) / 1000 + "s after "
+                    + lockoutFailures + " failed attempts");
+            }
+        }
+    }
+
+    //A successful login clears the failure count (the bucket still refills at its own pace)
+
+    public void recordSuccess(String username) {
+        String key = key(username);
+        synchronized (lockFor(key)) {
+            Bucket bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.failures = 0;
+            }
+        }
+    }
+
+    public long getAllowedCount() {
+        return allowed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getLockoutCount() {
+        return lockouts.sum();
+    }
+
+    public int getTrackedCount() {
+        return buckets.size();
+    }
+
+    private void refill(Bucket bucket, long now) {
+        long elapsed = now - bucket.refilledAt;
+        if (elapsed > 0) {
+            bucket.tokens = Math.min(burst, bucket.tokens + (double) elapsed / refillNanos);
+            bucket.refilledAt = now;
+        }
+    }
+
+    //At most one caller a minute walks the map and drops buckets that have been idle long enough
+
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+            return;
+        }
+        for (Iterator<Map.Entry<String, Bucket>> it = buckets.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Bucket> entry = it.next();
+            synchronized (lockFor(entry.getKey())) {
+                Bucket bucket = entry.getValue();
+                if (now - bucket.refilledAt > idleNanos && bucket.lockedUntil - now <= 0) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private Object lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    // Usernames are matched case-insensitively so "Admin" and "admin" share one bucket
+    private static String key(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long toMillis(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+}
@@ -0,0 +1,54 @@
+package dorm.service;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+//Periodically recounts building residents from the Student table and repairs any occupancy
+//counter that drifted (e.g. after a manual data fix with the triggers disabled). The counters
+//are normally exact, so a run that corrects something is logged as a warning.
+public class OccupancyReconciler {
+
+    private static final Logger LOGGER = Logger.getLogger(OccupancyReconciler.class.getName());
+
+    private final DatabaseDormService service;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+
+    public OccupancyReconciler(DatabaseDormService service, long intervalMillis) {
+        this.service = service;
+        this.intervalMillis = intervalMillis;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "dorm-occupancy");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //Begin the periodic job; an interval of zero or less leaves it switched off
+
+    public void start() {
+        if (intervalMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::reconcile, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void reconcile() {
+        try {
+            int corrected = service.reconcileOccupancy();
+            if (corrected > 0) {
+                LOGGER.warning("Corrected occupancy counters for " + corrected + " building(s)");
+            }
+        } catch (RuntimeException e) {
+            // Try again next round; a thrown exception would cancel the schedule
+            LOGGER.log(Level.WARNING, "Occupancy reconciliation failed", e);
+        }
+    }
+}
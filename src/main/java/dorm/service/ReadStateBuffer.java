@@ -0,0 +1,131 @@
+package dorm.service;
+
+import dorm.model.Message;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+//Write-behind buffer for message read/unread toggles. Clicking through a column of checkboxes
+//records each toggle in memory; shortly after the first one, everything pending is written in
+//at most two batched UPDATEs (one for read, one for unread). Repeated toggles of one message
+//collapse to its final state, and a message toggled back to where it started is not written.
+public class ReadStateBuffer {
+
+    private static final Logger LOGGER = Logger.getLogger(ReadStateBuffer.class.getName());
+
+    private final DatabaseDormService service;
+    private final long flushDelayMillis;
+    private final ScheduledExecutorService scheduler;
+
+    // Guarded by this
+    private final Map<String, Boolean> pending = new LinkedHashMap<>();
+    private final Map<String, Boolean> original = new HashMap<>();
+    private boolean flushScheduled;
+
+    public ReadStateBuffer(DatabaseDormService service, long flushDelayMillis) {
+        this.service = service;
+        this.flushDelayMillis = Math.max(0, flushDelayMillis);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "dorm-read-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //Record a toggle; the message object is updated at once, the database shortly after
+
+    public synchronized void set(Message message, boolean read) {
+        original.putIfAbsent(message.getId(), message.isRead());
+        message.setRead(read);
+        pending.put(message.getId(), read);
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(this::flushQuietly, flushDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    //True while a toggle for this message is waiting to be written
+
+    public synchronized boolean isPending(String messageId) {
+        return pending.containsKey(messageId);
+    }
+
+    //Write everything pending now, on the calling thread
+
+    public void flush() {
+        List<String> markRead = new ArrayList<>();
+        List<String> markUnread = new ArrayList<>();
+        Map<String, Boolean> batch;
+        Map<String, Boolean> batchOriginal;
+
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new LinkedHashMap<>(pending);
+            batchOriginal = new HashMap<>(original);
+            pending.clear();
+            original.clear();
+        }
+
+        for (Map.Entry<String, Boolean> entry : batch.entrySet()) {
+            if (entry.getValue().equals(batchOriginal.get(entry.getKey()))) {
+                continue;   // toggled back to where it started
+            }
+            (entry.getValue() ? markRead : markUnread).add(entry.getKey());
+        }
+
+        try {
+            if (!markRead.isEmpty() || !markUnread.isEmpty()) {
+                service.markMessagesRead(markRead, true);
+                service.markMessagesRead(markUnread, false);
+            }
+        } catch (RuntimeException e) {
+            requeue(batch, batchOriginal);
+            throw e;
+        }
+    }
+
+    //Flush what is left and stop the timer (application shutdown)
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not write pending read states on shutdown", e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not write read states, will retry", e);
+        }
+    }
+
+    //Put a failed batch back, unless the user toggled those messages again meanwhile
+
+    private synchronized void requeue(Map<String, Boolean> batch, Map<String, Boolean> batchOriginal) {
+        for (Map.Entry<String, Boolean> entry : batch.entrySet()) {
+            pending.putIfAbsent(entry.getKey(), entry.getValue());
+            original.put(entry.getKey(), batchOriginal.get(entry.getKey()));
+        }
+        if (!flushScheduled && !scheduler.isShutdown()) {
+            flushScheduled = true;
+            scheduler.schedule(this::flushQuietly, Math.max(flushDelayMillis, 1000) * 5, TimeUnit.MILLISECONDS);
+        }
+    }
+}
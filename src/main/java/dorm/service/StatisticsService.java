@@ -0,0 +1,50 @@
+package dorm.service;
+
+import dorm.dao.ApplicationRepository;
+import dorm.dao.ApplicationStatistics;
+import dorm.dao.DatabaseConnection;
+import dorm.util.TtlCache;
+
+
+//Dashboard statistics. The breakdowns are counted by the database (one GROUP BY per dimension,
+//sent as one statement) and the result is kept for a few seconds, so several admin dashboards
+//refreshing together cost one query. Admin actions in this process drop the cached result at
+//once; changes made elsewhere (students applying) show up when it expires.
+public class StatisticsService {
+
+    private static final String KEY = "*";
+
+    private final ApplicationRepository applicationRepository;
+    private final TtlCache<String, ApplicationStatistics> cache;
+
+    public StatisticsService(ApplicationRepository applicationRepository, long ttlMillis) {
+        this.applicationRepository = applicationRepository;
+        this.cache = new TtlCache<>(1, ttlMillis);
+    }
+
+    //Lifetime of cached statistics from stats.cacheSeconds in db.properties (default 10 seconds)
+
+    public static long configuredTtlMillis() {
+        String value = DatabaseConnection.getConfiguration().getProperty("stats.cacheSeconds", "10");
+        try {
+            return Long.parseLong(value.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid stats.cacheSeconds in db.properties, using default: " + e.getMessage());
+            return 10_000;
+        }
+    }
+
+    public ApplicationStatistics getApplicationStatistics() {
+        return cache.get(KEY, key -> applicationRepository.findStatistics());
+    }
+
+    //Forget the cached result; the next read goes to the database
+
+    public void invalidate() {
+        cache.invalidateAll();
+    }
+
+    public TtlCache.Stats getCacheStats() {
+        return cache.stats();
+    }
+}
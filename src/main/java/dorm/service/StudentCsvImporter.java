@@ -0,0 +1,486 @@
+package dorm.service;
+
+import dorm.dao.ApplicationRepository;
+import dorm.dao.DataAccessException;
+import dorm.dao.DatabaseConnection;
+import dorm.dao.StudentRepository;
+import dorm.dao.UserRepository;
+import dorm.model.College;
+import dorm.model.DormApplication;
+import dorm.model.Gender;
+import dorm.model.Residency;
+import dorm.model.SponsorshipType;
+import dorm.model.Student;
+import dorm.model.User;
+import dorm.util.CsvHelper;
+import dorm.util.PasswordHasher;
+import dorm.util.Validation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+//Bulk import of a registrar student list. The file is streamed a chunk at a time; each chunk is
+//validated, checked for duplicates (within the file and against the database with two index
+//lookups) and written as batched multi-row INSERTs in its own transaction. Rows that cannot be
+//imported go to a reject file with the line number and reason, so the rest of the list still loads.
+//Usernames and student IDs are compared case-insensitively, as the database's unique indexes do.
+//If a chunk's insert still fails on a row's data it is retried in halves, so only the rows at
+//fault are rejected; any other database error (connection lost, timeout) stops the import.
+//
+//Required columns: Username, Password, Name, Student ID, Gender. Optional: College, Sponsorship,
+//Residency, City, Subcity, Woreda, Disability. Rows with both Sponsorship and Residency also get a
+//phase one application, as if the student had submitted the form.
+public class StudentCsvImporter {
+
+    private static final Logger LOGGER = Logger.getLogger(StudentCsvImporter.class.getName());
+
+    //Progress callback, invoked on the importing thread after each chunk
+
+    @FunctionalInterface
+    public interface Progress {
+        void update(int rowsRead, int imported, int rejected);
+    }
+
+    public static class Result {
+        private int rowsRead;
+        private int studentsImported;
+        private int applicationsCreated;
+        private int rejected;
+        private long millis;
+        private Path rejectFile;
+
+        public int getRowsRead() {
+            return rowsRead;
+        }
+
+        public int getStudentsImported() {
+            return studentsImported;
+        }
+
+        public int getApplicationsCreated() {
+            return applicationsCreated;
+        }
+
+        public int getRejected() {
+            return rejected;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        //Where rejected rows were written, or null if every row was imported
+
+        public Path getRejectFile() {
+            return rejectFile;
+        }
+
+        public long getRowsPerSecond() {
+            return millis > 0 ? rowsRead * 1000L / millis : rowsRead;
+        }
+
+        //Human-readable summary for alerts and logs
+
+        public String summarize() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Imported ").append(studentsImported).append(" student(s) and ")
+              .append(applicationsCreated).append(" application(s) from ").append(rowsRead).append(" row(s)")
+              .append(" in ").append(millis).append(" ms (").append(getRowsPerSecond()).append(" rows/s)");
+            if (rejected > 0) {
+                sb.append("\n\nRejected ").append(rejected).append(" row(s), see ").append(rejectFile.getFileName());
+            }
+            return sb.toString();
+        }
+    }
+
+    // One transaction (and one INSERT batch per table) per chunk
+    static final int CHUNK_SIZE = 1000;
+
+    private enum Column {
+        USERNAME(true, "username"),
+        PASSWORD(true, "password"),
+        NAME(true, "name", "fullname", "displayname"),
+        STUDENT_ID(true, "studentid"),
+        GENDER(true, "gender", "sex"),
+        COLLEGE(false, "college"),
+        SPONSORSHIP(false, "sponsorship", "sponsorshiptype"),
+        RESIDENCY(false, "residency"),
+        CITY(false, "city"),
+        SUBCITY(false, "subcity"),
+        WOREDA(false, "woreda"),
+        DISABILITY(false, "disability", "disabilityinfo");
+
+        final boolean required;
+        final List<String> headers;
+
+        Column(boolean required, String... headers) {
+            this.required = required;
+            this.headers = Arrays.asList(headers);
+        }
+    }
+
+    private static final class Row {
+        final long line;
+        final String[] fields;
+        Student student;
+        DormApplication application;
+
+        Row(long line, String[] fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    private final StudentRepository studentRepository;
+    private final ApplicationRepository applicationRepository;
+    private final UserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+
+    public StudentCsvImporter(StudentRepository studentRepository, ApplicationRepository applicationRepository,
+                              UserRepository userRepository, PasswordHasher passwordHasher) {
+        this.studentRepository = studentRepository;
+        this.applicationRepository = applicationRepository;
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+    }
+
+    public Result importFile(Path source, Path rejectFile, Progress progress) {
+        long start = System.currentTimeMillis();
+        Result result = new Result();
+
+        try {
+            // A reject file left by an earlier run would be misleading
+            Files.deleteIfExists(rejectFile);
+        } catch (IOException e) {
+            throw new DataAccessException("delete", rejectFile.getFileName().toString(), e);
+        }
+
+        try (CsvHelper.CsvReader reader = CsvHelper.openReader(source);
+             RejectWriter rejects = new RejectWriter(rejectFile)) {
+
+            Validation.require(reader.next(), "The file is empty");
+            String[] header = reader.toArray();
+            Map<Column, Integer> columns = mapColumns(header);
+            rejects.setHeader(header);
+
+            // Staff accounts are few; students are checked per chunk against the unique indexes
+            Set<String> staffUsernames = new HashSet<>();
+            for (User user : userRepository.findAll()) {
+                staffUsernames.add(key(user.getUsername()));
+            }
+            Set<String> seenStudentIds = new HashSet<>();
+            Set<String> seenUsernames = new HashSet<>();
+
+            List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (reader.next()) {
+                if (reader.isBlank()) {
+                    continue;
+                }
+                result.rowsRead++;
+
+                Row row = new Row(reader.getLineNumber(), reader.toArray());
+                String problem = parse(row, columns);
+                if (problem == null && !seenStudentIds.add(key(row.student.getStudentId()))) {
+                    problem = "Duplicate student ID in file";
+                }
+                if (problem == null && !seenUsernames.add(key(row.student.getUsername()))) {
+                    problem = "Duplicate username in file";
+                }
+                if (problem == null && staffUsernames.contains(key(row.student.getUsername()))) {
+                    problem = "Username already taken";
+                }
+
+                if (problem != null) {
+                    rejects.write(row, problem);
+                    result.rejected++;
+                } else {
+                    chunk.add(row);
+                }
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    writeChunk(chunk, rejects, result);
+                    chunk.clear();
+                    progress.update(result.rowsRead, result.studentsImported, result.rejected);
+                }
+            }
+            writeChunk(chunk, rejects, result);
+            result.rejectFile = rejects.isOpen() ? rejectFile : null;
+        } catch (IOException e) {
+            throw new DataAccessException("import", source.getFileName().toString(), e);
+        }
+
+        result.millis = System.currentTimeMillis() - start;
+        progress.update(result.rowsRead, result.studentsImported, result.rejected);
+        LOGGER.info("Student import from " + source.getFileName() + ": " + result.summarize());
+        return result;
+    }
+
+    //Drop rows already in the database, then insert the rest
+
+    private void writeChunk(List<Row> chunk, RejectWriter rejects, Result result) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<String> studentIds = new ArrayList<>(chunk.size());
+        List<String> usernames = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            studentIds.add(row.student.getStudentId());
+            usernames.add(row.student.getUsername());
+        }
+        Set<String> takenIds = keys(studentRepository.findExistingStudentIds(studentIds));
+        Set<String> takenUsernames = keys(studentRepository.findExistingUsernames(usernames));
+
+        List<Row> accepted = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (takenIds.contains(key(row.student.getStudentId()))) {
+                rejects.write(row, "Student ID already registered");
+                result.rejected++;
+            } else if (takenUsernames.contains(key(row.student.getUsername()))) {
+                rejects.write(row, "Username already taken");
+                result.rejected++;
+            } else {
+                accepted.add(row);
+            }
+        }
+
+        // Hashing is deliberately slow, so spread a chunk's passwords over the available cores
+        accepted.parallelStream().forEach(row -> row.student.setPassword(passwordHasher.hash(row.student.getPassword())));
+
+        save(accepted, rejects, result);
+    }
+
+    //Insert rows in one transaction. If that fails because of a row (e.g. a student registered
+    //between the duplicate check and the insert) retry each half on its own, down to single rows,
+    //so only the offending rows are rejected, each with the error its own insert raised. Any
+    //other failure would fail every retry too, so it ends the import instead.
+
+    private void save(List<Row> rows, RejectWriter rejects, Result result) throws IOException {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        List<Student> students = new ArrayList<>(rows.size());
+        List<DormApplication> applications = new ArrayList<>();
+        for (Row row : rows) {
+            students.add(row.student);
+            if (row.application != null) {
+                applications.add(row.application);
+            }
+        }
+
+        try {
+            DatabaseConnection.inTransaction(() -> {
+                studentRepository.saveAll(students);
+                applicationRepository.saveAll(applications);
+                return null;
+            });
+            result.studentsImported += students.size();
+            result.applicationsCreated += applications.size();
+        } catch (DataAccessException e) {
+            if (!isRowProblem(e)) {
+                throw new DataAccessException("Import stopped at line " + rows.get(0).line + " after "
+                    + result.studentsImported + " student(s) were saved: " + e.getMessage(), e);
+            }
+            if (rows.size() == 1) {
+                LOGGER.log(Level.WARNING, "Import of line " + rows.get(0).line + " rolled back", e);
+                rejects.write(rows.get(0), "Not saved: " + e.getMessage());
+                result.rejected++;
+                return;
+            }
+            LOGGER.fine("Import batch of " + rows.size() + " rows rolled back, retrying in halves: " + e.getMessage());
+            int half = rows.size() / 2;
+            save(rows.subList(0, half), rejects, result);
+            save(rows.subList(half, rows.size()), rejects, result);
+        }
+    }
+
+    //Constraint violations (SQLSTATE class 23) and bad data (class 22) belong to particular rows;
+    //anything else, such as a lost connection or a pool timeout, is not fixed by retrying
+
+    private static boolean isRowProblem(DataAccessException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                for (SQLException sql = (SQLException) cause; sql != null; sql = sql.getNextException()) {
+                    String state = sql.getSQLState();
+                    if (state != null && (state.startsWith("23") || state.startsWith("22"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Unique indexes use a case-insensitive collation, so duplicates are matched the same way
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> keys(Set<String> values) {
+        Set<String> keys = new HashSet<>(values.size() * 2);
+        for (String value : values) {
+            keys.add(key(value));
+        }
+        return keys;
+    }
+
+    //Build the student (and application) for a row; returns the reason it is invalid, or null
+
+    private String parse(Row row, Map<Column, Integer> columns) {
+        String username = field(row, columns, Column.USERNAME);
+        String password = field(row, columns, Column.PASSWORD);
+        String name = field(row, columns, Column.NAME);
+        String studentId = Validation.normalizeAauId(field(row, columns, Column.STUDENT_ID));
+
+        if (username == null) return "Missing username";
+        if (password == null) return "Missing password";
+        if (name == null) return "Missing name";
+        if (!Validation.isValidAauId(studentId)) return "Invalid student ID: " + (studentId == null ? "(empty)" : studentId);
+
+        Gender gender = parseGender(field(row, columns, Column.GENDER));
+        if (gender == null) return "Invalid gender";
+
+        String collegeValue = field(row, columns, Column.COLLEGE);
+        College college = parseCollege(collegeValue);
+        if (collegeValue != null && college == null) return "Unknown college: " + collegeValue;
+
+        String sponsorshipValue = field(row, columns, Column.SPONSORSHIP);
+        SponsorshipType sponsorship = parseEnum(SponsorshipType.class, sponsorshipValue);
+        if (sponsorshipValue != null && sponsorship == null) return "Unknown sponsorship: " + sponsorshipValue;
+
+        String residencyValue = field(row, columns, Column.RESIDENCY);
+        Residency residency = parseEnum(Residency.class, residencyValue);
+        if (residencyValue != null && residency == null) return "Unknown residency: " + residencyValue;
+
+        Student student = new Student(UUID.randomUUID().toString(), username, password, name, studentId, gender, college);
+        student.setSponsorshipType(sponsorship);
+        student.setResidency(residency);
+        student.setCity(field(row, columns, Column.CITY));
+        student.setSubcity(field(row, columns, Column.SUBCITY));
+        student.setWoreda(field(row, columns, Column.WOREDA));
+        student.setDisabilityInfo(field(row, columns, Column.DISABILITY));
+        row.student = student;
+
+        if (sponsorship != null && residency != null) {
+            row.application = new DormApplication(UUID.randomUUID().toString(), student);
+        }
+        return null;
+    }
+
+    private static Map<Column, Integer> mapColumns(String[] header) {
+        Map<Column, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            String key = header[i].toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "");
+            for (Column column : Column.values()) {
+                if (column.headers.contains(key)) {
+                    columns.putIfAbsent(column, i);
+                }
+            }
+        }
+        for (Column column : Column.values()) {
+            Validation.require(!column.required || columns.containsKey(column),
+                "Missing column: " + column.headers.get(0));
+        }
+        return columns;
+    }
+
+    //Trimmed value of a column, or null when the column is absent or blank
+
+    private static String field(Row row, Map<Column, Integer> columns, Column column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= row.fields.length) {
+            return null;
+        }
+        String value = row.fields[index].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Gender parseGender(String value) {
+        if (value == null) return null;
+        switch (value.toUpperCase(Locale.ROOT)) {
+            case "M": case "MALE": return Gender.MALE;
+            case "F": case "FEMALE": return Gender.FEMALE;
+            default: return null;
+        }
+    }
+
+    //Enum name or acronym, e.g. NATURAL_COMPUTATIONAL or CNCS
+
+    private static College parseCollege(String value) {
+        if (value == null) return null;
+        for (College college : College.values()) {
+            if (college.getAcronym().equalsIgnoreCase(value)) {
+                return college;
+            }
+        }
+        return parseEnum(College.class, value);
+    }
+
+    //Enum constant by name, forgiving case and spaces/hyphens ("Self-sponsored")
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        if (value == null) return null;
+        String name = value.trim().toUpperCase(Locale.ROOT).replaceAll("[\\s-]+", "_");
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    //Reject file, created on the first rejected row: the original fields plus Line and Reason
+
+    private static final class RejectWriter implements AutoCloseable {
+        private final Path path;
+        private String[] header;
+        private CsvHelper.CsvWriter writer;
+
+        RejectWriter(Path path) {
+            this.path = path;
+        }
+
+        void setHeader(String[] header) {
+            this.header = header;
+        }
+
+        boolean isOpen() {
+            return writer != null;
+        }
+
+        void write(Row row, String reason) throws IOException {
+            if (writer == null) {
+                writer = CsvHelper.openWriter(path);
+                for (String column : header) {
+                    writer.field(column);
+                }
+                writer.field("Line").field("Reason").endRecord();
+            }
+            for (int i = 0; i < Math.max(row.fields.length, header.length); i++) {
+                writer.field(i < row.fields.length ? row.fields[i] : null);
+            }
+            writer.field(String.valueOf(row.line)).field(reason).endRecord();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
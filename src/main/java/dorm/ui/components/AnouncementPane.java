@@ -1,19 +1,24 @@
 package dorm.ui.components;
 
+import dorm.dao.ChangeSet;
 import dorm.model.Announcement;
-import dorm.service.DatabaseDormService;
+import dorm.service.AsyncDormService;
+import dorm.service.ChangeWatcher;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.function.Consumer;
 
 
 public class AnnouncementPane extends VBox {
     
-    private final DatabaseDormService service;
+    private final AsyncDormService service;
+    private final AsyncDormService.Latest<ChangeSet<Announcement>> loadRequest;
     private final String createdBy;
     private final ListView<Announcement> announcementListView;
     private final TextField titleField;
@@ -21,10 +26,15 @@ public class AnnouncementPane extends VBox {
     private final Button postButton;
     private Announcement editingAnnouncement;
     private Consumer<String> alertCallback;
+    private LocalDateTime version;          // change-feed version of the list; null = load everything
+    
+    private static final Comparator<Announcement> NEWEST_FIRST =
+        Comparator.comparing(Announcement::getCreatedAt).reversed();
     
   
-    public AnnouncementPane(DatabaseDormService service, String createdBy, boolean editable) {
+    public AnnouncementPane(AsyncDormService service, String createdBy, boolean editable) {
         this.service = service;
+        this.loadRequest = service.latest();
         this.createdBy = createdBy;
         this.announcementListView = new ListView<>();
         this.titleField = new TextField();
@@ -94,9 +104,36 @@ public class AnnouncementPane extends VBox {
         this.alertCallback = callback;
     }
     
+    //Load the list the first time, then apply only what changed since
   
     public void refresh() {
-        announcementListView.setItems(FXCollections.observableArrayList(service.getAnnouncements()));
+        LocalDateTime since = version;
+        loadRequest.submit(s -> s.getAnnouncementChanges(since)).whenComplete((changes, error) -> {
+            if (error != null) {
+                if (!AsyncDormService.isCancellation(error)) {
+                    showAlert("Could not load announcements: " + AsyncDormService.unwrap(error).getMessage());
+                }
+                return;
+            }
+            if (since == null) {
+                announcementListView.setItems(FXCollections.observableArrayList(changes.getChanged()));
+            } else {
+                changes.applyTo(announcementListView.getItems(), Announcement::getId, NEWEST_FIRST);
+            }
+            version = changes.getVersion();
+        });
+    }
+    
+    //Refresh whenever the watcher reports an announcement change; cancel the result to stop
+    
+    public ChangeWatcher.Subscription watch(ChangeWatcher watcher) {
+        return watcher.onAnnouncementsChanged(this::refresh);
+    }
+    
+    //Drop any load still in flight once the pane is discarded
+    
+    public void dispose() {
+        loadRequest.cancel();
     }
     
     private void handlePost() {
@@ -105,21 +142,35 @@ public class AnnouncementPane extends VBox {
             return;
         }
         
-        if (editingAnnouncement != null) {
-            // Saving edit
-            editingAnnouncement.setTitle(titleField.getText().trim());
-            editingAnnouncement.setBody(bodyArea.getText().trim());
-            service.updateAnnouncement(editingAnnouncement);
-            editingAnnouncement = null;
-            postButton.setText("Post");
-        } else {
-            // New post
-            service.addAnnouncement(titleField.getText().trim(), bodyArea.getText().trim(), createdBy);
-        }
+        String title = titleField.getText().trim();
+        String body = bodyArea.getText().trim();
+        Announcement editing = editingAnnouncement;
         
-        titleField.clear();
-        bodyArea.clear();
-        refresh();
+        postButton.setDisable(true);
+        service.run(s -> {
+            if (editing != null) {
+                // Saving edit
+                editing.setTitle(title);
+                editing.setBody(body);
+                s.updateAnnouncement(editing);
+            } else {
+                // New post
+                s.addAnnouncement(title, body, createdBy);
+            }
+        }).whenComplete((ignored, error) -> {
+            postButton.setDisable(false);
+            if (error != null) {
+                showAlert("Could not save announcement: " + AsyncDormService.unwrap(error).getMessage());
+                return;
+            }
+            if (editing != null) {
+                editingAnnouncement = null;
+                postButton.setText("Post");
+            }
+            titleField.clear();
+            bodyArea.clear();
+            refresh();
+        });
     }
     
     private void handleEdit() {
@@ -140,8 +191,13 @@ public class AnnouncementPane extends VBox {
             showAlert("Select an announcement first");
             return;
         }
-        service.deleteAnnouncement(selected);
-        refresh();
+        service.run(s -> s.deleteAnnouncement(selected)).whenComplete((ignored, error) -> {
+            if (error != null) {
+                showAlert("Could not delete announcement: " + AsyncDormService.unwrap(error).getMessage());
+                return;
+            }
+            refresh();
+        });
     }
     
     private void showAlert(String message) {
@@ -1,7 +1,8 @@
 package dorm.ui.components;
 
-import dorm.model.ApplicationStatus;
 import dorm.model.DormApplication;
+import dorm.service.AsyncDormService;
+import dorm.service.BulkResult;
 import dorm.service.DatabaseDormService;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.geometry.Insets;
@@ -15,12 +16,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 
 public class ApplicationActionsPane extends VBox {
     
-    private final DatabaseDormService service;
+    private final AsyncDormService service;
     private final String currentUsername;
     private final TableView<DormApplication> applicationTable;
     private final Map<String, SimpleBooleanProperty> selectionMap;
@@ -30,7 +32,7 @@ public class ApplicationActionsPane extends VBox {
     private Runnable onActionCompleted;
     private Supplier<Window> windowSupplier;
     
-    public ApplicationActionsPane(DatabaseDormService service, 
+    public ApplicationActionsPane(AsyncDormService service,
                                   String currentUsername,
                                   TableView<DormApplication> applicationTable,
                                   Map<String, SimpleBooleanProperty> selectionMap) {
@@ -114,20 +116,7 @@ public class ApplicationActionsPane extends VBox {
             return;
         }
         
-        for (DormApplication app : selected) {
-            ApplicationStatus status = app.getStatus();
-            if (status == ApplicationStatus.PHASE_ONE_PENDING || 
-                status == ApplicationStatus.PHASE_ONE_DECLINED ||
-                status == ApplicationStatus.PHASE_ONE_RESUBMIT) {
-                service.approvePhaseOne(app, "");
-            } else if (status == ApplicationStatus.PHASE_TWO_PENDING ||
-                       status == ApplicationStatus.PHASE_TWO_DECLINED) {
-                service.approvePhaseTwoApplication(app, "");
-            }
-        }
-        
-        notifyActionCompleted();
-        showAlert("Approved " + selected.size() + " applications");
+        runBulk(s -> s.approveApplications(selected, ""), result -> showAlert(result.summarize("Approved")));
     }
     
     private void handleDecline() {
@@ -137,20 +126,7 @@ public class ApplicationActionsPane extends VBox {
             return;
         }
         
-        for (DormApplication app : selected) {
-            ApplicationStatus status = app.getStatus();
-            if (status == ApplicationStatus.PHASE_ONE_PENDING ||
-                status == ApplicationStatus.PHASE_ONE_APPROVED ||
-                status == ApplicationStatus.PHASE_ONE_RESUBMIT) {
-                service.declinePhaseOne(app, "");
-            } else if (status == ApplicationStatus.PHASE_TWO_PENDING ||
-                       status == ApplicationStatus.PHASE_TWO_APPROVED) {
-                service.declinePhaseTwoApplication(app, "");
-            }
-        }
-        
-        notifyActionCompleted();
-        showAlert("Declined " + selected.size() + " applications");
+        runBulk(s -> s.declineApplications(selected, ""), result -> showAlert(result.summarize("Declined")));
     }
     
     private void handleResubmit() {
@@ -173,29 +149,8 @@ public class ApplicationActionsPane extends VBox {
         }
         
         String reason = result.get().trim();
-        int count = 0;
-        
-        for (DormApplication app : selected) {
-            ApplicationStatus status = app.getStatus();
-            if (status == ApplicationStatus.PHASE_ONE_PENDING ||
-                status == ApplicationStatus.PHASE_ONE_DECLINED ||
-                status == ApplicationStatus.PHASE_ONE_APPROVED) {
-                
-                service.requestResubmit(app, reason);
-                
-                // Send message to student (sanitize and limit to 80 chars)
-                String message = "Resubmit required: " + reason;
-                message = message.replaceAll("[\\r\\n]+", " ");
-                if (message.length() > 80) {
-                    message = message.substring(0, 77) + "...";
-                }
-                service.sendMessage(currentUsername, app.getStudent().getUsername(), message);
-                count++;
-            }
-        }
-        
-        notifyActionCompleted();
-        showAlert("Requested " + count + " student(s) to resubmit. Messages sent.");
+        runBulk(s -> s.requestResubmitApplications(selected, reason, currentUsername),
+            outcome -> showAlert(outcome.summarize("Requested resubmission for") + "\n\nMessages sent."));
     }
     
     private void handleAssign(String building) {
@@ -205,33 +160,20 @@ public class ApplicationActionsPane extends VBox {
             return;
         }
         
-        int count = 0;
-        List<String> notReady = new ArrayList<>();
-        
-        for (DormApplication app : selected) {
-            if (service.isReadyForAssignment(app)) {
-                service.assignBuilding(app.getStudent(), building);
-                count++;
-            } else {
-                String studentName = app.getStudent().getDisplayName();
-                String status = app.getStatus().name();
-                notReady.add(studentName + " (" + status + ")");
+        runBulk(s -> s.assignBuilding(selected, building), result -> showAlert(result.summarize("Assigned to " + building + ":")));
+    }
+    
+    //Run a bulk action on a worker thread; the table refreshes and onDone reports once it finishes
+    
+    private void runBulk(Function<DatabaseDormService, BulkResult> action, Consumer<BulkResult> onDone) {
+        service.supply(action).whenComplete((result, error) -> {
+            if (error != null) {
+                showAlert("Action failed: " + AsyncDormService.unwrap(error).getMessage());
+                return;
             }
-        }
-        
-        notifyActionCompleted();
-        
-        // Build appropriate message
-        if (count > 0 && notReady.isEmpty()) {
-            showAlert("Assigned " + count + " student(s) to " + building);
-        } else if (count > 0 && !notReady.isEmpty()) {
-            showAlert("Assigned " + count + " student(s) to " + building + 
-                     "\n\nCould not assign " + notReady.size() + " student(s) - Phase 2 not completed:\n" +
-                     String.join("\n", notReady));
-        } else {
-            showAlert("No students were assigned.\n\nSelected students have not completed Phase 2:\n" +
-                     String.join("\n", notReady));
-        }
+            notifyActionCompleted();
+            onDone.accept(result);
+        });
     }
     
     private void handleExport() {
@@ -242,7 +184,7 @@ public class ApplicationActionsPane extends VBox {
         }
         
         Window window = windowSupplier != null ? windowSupplier.get() : null;
-        ExportUtil.exportApplicationsToCsv(selected, window);
+        ExportUtil.exportApplicationsToCsv(service, selected, window);
     }
     
     private void showAlert(String message) {
@@ -1,16 +1,16 @@
 package dorm.ui.components;
 
+import dorm.dao.ApplicationQuery;
 import dorm.model.*;
 import javafx.geometry.Insets;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 
-import java.util.List;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 
 public class ApplicationFilterPane extends VBox {
@@ -22,6 +22,8 @@ public class ApplicationFilterPane extends VBox {
     private final ComboBox<String> filterCollege;
     private final ComboBox<String> filterSponsorship;
     private final ComboBox<String> filterStatus;
+    private final DatePicker filterSubmittedFrom;
+    private final DatePicker filterSubmittedTo;
     
     private Consumer<Void> onFilterApplied;
     
@@ -64,6 +66,14 @@ public class ApplicationFilterPane extends VBox {
         for (ApplicationStatus s : ApplicationStatus.values()) filterStatus.getItems().add(s.name());
         filterStatus.setValue("All Status");
         
+        filterSubmittedFrom = new DatePicker();
+        filterSubmittedFrom.setPromptText("From");
+        filterSubmittedFrom.setPrefWidth(120);
+        
+        filterSubmittedTo = new DatePicker();
+        filterSubmittedTo.setPromptText("To");
+        filterSubmittedTo.setPrefWidth(120);
+        
         Button applyFilterBtn = new Button("Apply Filter");
         Button clearFilterBtn = new Button("Clear");
         
@@ -112,6 +122,7 @@ public class ApplicationFilterPane extends VBox {
             new Label("College:"), filterCollege,
             new Label("Sponsorship:"), filterSponsorship,
             new Label("Status:"), filterStatus,
+            new Label("Submitted:"), filterSubmittedFrom, filterSubmittedTo,
             applyFilterBtn, clearFilterBtn);
         filterRow2.setPadding(new Insets(5));
         
@@ -138,87 +149,59 @@ public class ApplicationFilterPane extends VBox {
         filterCollege.setValue("All Colleges");
         filterSponsorship.setValue("All Sponsorship");
         filterStatus.setValue("All Status");
+        filterSubmittedFrom.setValue(null);
+        filterSubmittedTo.setValue(null);
         notifyFilterApplied();
     }
     
-    public List<DormApplication> applyFilters(List<DormApplication> applications) {
-        return applications.stream()
-            .filter(this::matchesFilters)
-            .sorted(this::compareApplications)
-            .collect(Collectors.toList());
-    }
+    //Build a database query from the current filter selections
     
-    private boolean matchesFilters(DormApplication app) {
-        Student s = app.getStudent();
+    public ApplicationQuery buildQuery() {
+        ApplicationQuery query = new ApplicationQuery();
         
-        String genderFilter = filterGender.getValue();
-        if (genderFilter != null && !"All Genders".equals(genderFilter)) {
-            if (s.getGender() == null || !s.getGender().name().equals(genderFilter)) {
-                return false;
-            }
+        String genderFilter = filterValue(filterGender.getValue(), "All Genders");
+        if (genderFilter != null) {
+            query.setGender(Gender.valueOf(genderFilter));
         }
         
-        String residencyFilter = filterResidency.getValue();
-        if (residencyFilter != null && !"All Residency".equals(residencyFilter)) {
-            if (s.getResidency() == null || !s.getResidency().name().equals(residencyFilter)) {
-                return false;
-            }
+        String residencyFilter = filterValue(filterResidency.getValue(), "All Residency");
+        if (residencyFilter != null) {
+            query.setResidency(Residency.valueOf(residencyFilter));
         }
         
-        String subcityFilter = filterSubcity.getValue();
-        if (subcityFilter != null && !"All Subcities".equals(subcityFilter) && !subcityFilter.isEmpty()) {
-            if (s.getSubcity() == null || !s.getSubcity().equalsIgnoreCase(subcityFilter)) {
-                return false;
-            }
-        }
+        query.setSubcity(filterValue(filterSubcity.getValue(), "All Subcities"));
+        query.setWoreda(filterValue(filterWoreda.getValue(), "All Woredas"));
         
-        String woredaFilter = filterWoreda.getValue();
-        if (woredaFilter != null && !"All Woredas".equals(woredaFilter) && !woredaFilter.isEmpty()) {
-            if (s.getWoreda() == null || !s.getWoreda().equals(woredaFilter)) {
-                return false;
+        String collegeFilter = filterValue(filterCollege.getValue(), "All Colleges");
+        if (collegeFilter != null) {
+            for (College c : College.values()) {
+                if (c.getAcronym().equals(collegeFilter)) {
+                    query.setCollege(c);
+                    break;
+                }
             }
         }
         
-        String collegeFilter = filterCollege.getValue();
-        if (collegeFilter != null && !"All Colleges".equals(collegeFilter)) {
-            if (s.getCollege() == null || !s.getCollege().getAcronym().equals(collegeFilter)) {
-                return false;
-            }
+        String sponsorFilter = filterValue(filterSponsorship.getValue(), "All Sponsorship");
+        if (sponsorFilter != null) {
+            query.setSponsorshipType(SponsorshipType.valueOf(sponsorFilter));
         }
         
-        String sponsorFilter = filterSponsorship.getValue();
-        if (sponsorFilter != null && !"All Sponsorship".equals(sponsorFilter)) {
-            if (s.getSponsorshipType() == null || !s.getSponsorshipType().name().equals(sponsorFilter)) {
-                return false;
-            }
+        String statusFilter = filterValue(filterStatus.getValue(), "All Status");
+        if (statusFilter != null) {
+            query.setStatus(ApplicationStatus.valueOf(statusFilter));
         }
         
-        String statusFilter = filterStatus.getValue();
-        if (statusFilter != null && !"All Status".equals(statusFilter)) {
-            if (!app.getStatus().name().equals(statusFilter)) {
-                return false;
-            }
-        }
+        query.setSubmittedFrom(filterSubmittedFrom.getValue());
+        query.setSubmittedTo(filterSubmittedTo.getValue());
         
-        return true;
+        return query;
     }
     
-    private int compareApplications(DormApplication a1, DormApplication a2) {
-        // ASSIGNED status goes to end
-        boolean a1Assigned = a1.getStatus() == ApplicationStatus.ASSIGNED;
-        boolean a2Assigned = a2.getStatus() == ApplicationStatus.ASSIGNED;
-        
-        if (a1Assigned && !a2Assigned) return 1;
-        if (!a1Assigned && a2Assigned) return -1;
-        
-        // Sort by submission date (earliest first)
-        String date1 = a1.getSubmittedDate();
-        String date2 = a2.getSubmittedDate();
-        
-        if (date1 == null && date2 == null) return 0;
-        if (date1 == null) return 1;
-        if (date2 == null) return -1;
-        
-        return date1.compareTo(date2);
+    private String filterValue(String filter, String allValue) {
+        if (filter == null || allValue.equals(filter) || filter.isBlank()) {
+            return null;
+        }
+        return filter.trim();
     }
 }
@@ -2,16 +2,22 @@ package dorm.ui.components;
 
 import dorm.model.*;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
+import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.CheckBoxTableCell;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.Map;
 
 
 public class ApplicationTableBuilder {
     
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    
     private final TableView<DormApplication> table;
     private final Map<String, SimpleBooleanProperty> selectionMap;
     
@@ -135,10 +141,18 @@ public class ApplicationTableBuilder {
         return col;
     }
     
-    private TableColumn<DormApplication, String> createSubmittedColumn() {
-        TableColumn<DormApplication, String> col = new TableColumn<>("Submitted");
-        col.setCellValueFactory(cell -> new SimpleStringProperty(
-            safe(cell.getValue().getSubmittedDate())));
+    //Keeps the LocalDate as the cell value so column sorting is chronological; only the cell text is formatted
+    
+    private TableColumn<DormApplication, LocalDate> createSubmittedColumn() {
+        TableColumn<DormApplication, LocalDate> col = new TableColumn<>("Submitted");
+        col.setCellValueFactory(cell -> new SimpleObjectProperty<>(cell.getValue().getSubmittedDate()));
+        col.setCellFactory(c -> new TableCell<>() {
+            @Override
+            protected void updateItem(LocalDate item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : item.format(DATE_FORMAT));
+            }
+        });
         return col;
     }
     
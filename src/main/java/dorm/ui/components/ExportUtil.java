@@ -1,14 +1,13 @@
 package dorm.ui.components;
 
 import dorm.model.DormApplication;
-import dorm.model.Student;
+import dorm.service.ApplicationCsvExporter;
+import dorm.service.AsyncDormService;
 import javafx.scene.control.Alert;
 import javafx.stage.FileChooser;
 import javafx.stage.Window;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.List;
 
 
@@ -19,7 +18,10 @@ public final class ExportUtil {
     }
     
 
-    public static boolean exportApplicationsToCsv(List<DormApplication> applications, Window parentWindow) {
+    //Write the applications on one of the service's workers; the result is reported in a dialog when done
+
+    public static boolean exportApplicationsToCsv(AsyncDormService async, List<DormApplication> applications,
+                                                  Window parentWindow) {
         FileChooser chooser = new FileChooser();
         chooser.setTitle("Export Applications");
         chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
@@ -30,53 +32,16 @@ public final class ExportUtil {
             return false; // User cancelled
         }
         
-        try (FileWriter writer = new FileWriter(file)) {
-            // Write header
-            writer.write("Name,Student ID,Gender,Sponsorship,Residency,City,Subcity,Woreda,");
-            writer.write("Status,Submitted,Last Response,Building,Transaction ID\n");
-            
-            // Write data
-            for (DormApplication app : applications) {
-                Student s = app.getStudent();
-                writer.write(String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s\n",
-                    escapeCsvValue(s.getDisplayName()),
-                    escapeCsvValue(s.getStudentId()),
-                    s.getGender() != null ? s.getGender().name() : "-",
-                    s.getSponsorshipType() != null ? s.getSponsorshipType().name() : "-",
-                    s.getResidency() != null ? s.getResidency().name() : "-",
-                    escapeCsvValue(safe(s.getCity())),
-                    escapeCsvValue(safe(s.getSubcity())),
-                    escapeCsvValue(safe(s.getWoreda())),
-                    app.getStatus().name(),
-                    escapeCsvValue(safe(app.getSubmittedDate())),
-                    escapeCsvValue(safe(app.getLatestResponse())),
-                    escapeCsvValue(safe(s.getAssignedBuilding())),
-                    escapeCsvValue(safe(s.getTransactionId()))
-                ));
-            }
-            
-            showInfo("Exported " + applications.size() + " applications to " + file.getName());
-            return true;
-            
-        } catch (IOException e) {
-            showError("Export failed: " + e.getMessage());
-            return false;
-        }
-    }
-    
-    private static String escapeCsvValue(String value) {
-        if (value == null) {
-            return "";
-        }
-        // Escape quotes and wrap in quotes if needed
-        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
-            return "\"" + value.replace("\"", "\"\"") + "\"";
-        }
-        return value;
-    }
-    
-    private static String safe(String value) {
-        return value == null || value.isBlank() ? "-" : value;
+        List<DormApplication> rows = List.copyOf(applications);
+        async.supply(s -> ApplicationCsvExporter.export(rows, file.toPath()))
+            .whenComplete((result, error) -> {
+                if (error != null) {
+                    showError("Export failed: " + AsyncDormService.unwrap(error).getMessage());
+                } else {
+                    showInfo("Exported " + result.getRows() + " applications to " + file.getName());
+                }
+            });
+        return true;
     }
     
     private static void showInfo(String message) {
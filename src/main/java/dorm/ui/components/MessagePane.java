@@ -1,8 +1,10 @@
 package dorm.ui.components;
 
+import dorm.dao.ChangeSet;
 import dorm.model.Message;
-import dorm.model.Student;
-import dorm.service.DatabaseDormService;
+import dorm.model.MessageView;
+import dorm.service.AsyncDormService;
+import dorm.service.ChangeWatcher;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -12,32 +14,46 @@ import javafx.scene.control.cell.CheckBoxTableCell;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 
-import java.util.List;
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 
 public class MessagePane extends VBox {
     
-    private final DatabaseDormService service;
+    private final AsyncDormService service;
     private final String currentUsername;
-    private final TableView<Message> messagesTable;
+    private final TableView<MessageView> messagesTable;
     private final TextField studentIdField;
     private final TextField messageField;
     private final Label charCountLabel;
     private Consumer<String> alertCallback;
+    private StudentIdLookup studentLookup;
+    private final AsyncDormService.Latest<ChangeSet<MessageView>> loadRequest;
+    private LocalDateTime version;          // change-feed version of the table; null = load everything
+    private ChangeWatcher.Subscription subscription;
+    private final Map<String, SimpleBooleanProperty> readProperties = new HashMap<>();
     
+    private static final Comparator<MessageView> NEWEST_FIRST =
+        Comparator.comparing((MessageView m) -> m.getMessage().getSentAt()).reversed();
     
-    public MessagePane(DatabaseDormService service, String currentUsername) {
+    
+    public MessagePane(AsyncDormService service, String currentUsername) {
         this.service = service;
         this.currentUsername = currentUsername;
         this.messagesTable = new TableView<>();
         this.studentIdField = new TextField();
         this.messageField = new TextField();
         this.charCountLabel = new Label("0/80");
+        this.loadRequest = service.latest();
         
         buildUI();
+        
+        // Incoming messages appear as the background watcher spots them
+        subscription = service.getWatcher().onMessagesChanged(currentUsername, this::refresh);
     }
     
     private void buildUI() {
@@ -47,21 +63,8 @@ public class MessagePane extends VBox {
         Label studentNameLabel = new Label();
         studentNameLabel.setStyle("-fx-text-fill: #666;");
         
-        // Show student name when ID is entered
-        studentIdField.textProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal != null && !newVal.trim().isEmpty()) {
-                Optional<Student> student = service.findStudentByStudentId(newVal.trim());
-                if (student.isPresent()) {
-                    studentNameLabel.setText("Student: " + student.get().getDisplayName());
-                    studentNameLabel.setStyle("-fx-text-fill: green;");
-                } else {
-                    studentNameLabel.setText("Student not found");
-                    studentNameLabel.setStyle("-fx-text-fill: red;");
-                }
-            } else {
-                studentNameLabel.setText("");
-            }
-        });
+        // Show student name once a complete ID is entered (debounced and cached)
+        studentLookup = new StudentIdLookup(service, studentIdField, studentNameLabel);
         
         messageField.setPromptText("Type your reply (max 80 characters)");
         messageField.setPrefWidth(400);
@@ -99,21 +102,22 @@ public class MessagePane extends VBox {
         // Double-click to auto-fill student ID for reply
         messagesTable.setOnMouseClicked(event -> {
             if (event.getClickCount() == 2) {
-                Message selected = messagesTable.getSelectionModel().getSelectedItem();
-                if (selected != null) {
-                    Optional<Student> student = service.findStudentByUsername(selected.getFromUser());
-                    if (student.isPresent()) {
-                        studentIdField.setText(student.get().getStudentId());
-                    }
+                MessageView selected = messagesTable.getSelectionModel().getSelectedItem();
+                if (selected != null && selected.getSenderStudentId() != null) {
+                    studentIdField.setText(selected.getSenderStudentId());
                 }
             }
         });
         
         this.setSpacing(10);
         this.setPadding(new Insets(10));
+        Button markAllReadButton = new Button("Mark All Read");
+        markAllReadButton.setOnAction(event -> handleMarkAllRead());
+        
         this.getChildren().addAll(
             new Label("Received Messages (double-click to reply):"),
             messagesTable,
+            markAllReadButton,
             new Separator(),
             form
         );
@@ -122,40 +126,31 @@ public class MessagePane extends VBox {
     private void buildMessagesTable() {
         messagesTable.setEditable(true);
         
-        TableColumn<Message, Boolean> readCol = new TableColumn<>("Read");
-        readCol.setCellValueFactory(cell -> {
-            SimpleBooleanProperty prop = new SimpleBooleanProperty(cell.getValue().isRead());
-            prop.addListener((obs, oldVal, newVal) -> {
-                service.markMessageAsRead(cell.getValue(), newVal);
-            });
-            return prop;
-        });
+        TableColumn<MessageView, Boolean> readCol = new TableColumn<>("Read");
+        // One property per message, reused across re-renders; toggles go to the write-behind buffer
+        readCol.setCellValueFactory(cell -> readProperty(cell.getValue().getMessage()));
         readCol.setCellFactory(col -> new CheckBoxTableCell<>());
         readCol.setEditable(true);
         readCol.setPrefWidth(50);
         
-        TableColumn<Message, String> fromCol = new TableColumn<>("From");
-        fromCol.setCellValueFactory(cell -> {
-            String fromUsername = cell.getValue().getFromUser();
-            Optional<Student> student = service.findStudentByUsername(fromUsername);
-            if (student.isPresent()) {
-                Student s = student.get();
-                return new SimpleStringProperty(s.getDisplayName() + " (" + s.getStudentId() + ")");
-            }
-            return new SimpleStringProperty(fromUsername);
-        });
+        // Sender was resolved when the messages were loaded
+        TableColumn<MessageView, String> fromCol = new TableColumn<>("From");
+        fromCol.setCellValueFactory(cell -> 
+            new SimpleStringProperty(cell.getValue().getSenderLabel()));
         fromCol.setPrefWidth(200);
         
-        TableColumn<Message, String> messageCol = new TableColumn<>("Message");
+        TableColumn<MessageView, String> messageCol = new TableColumn<>("Message");
         messageCol.setCellValueFactory(cell -> 
-            new SimpleStringProperty(cell.getValue().getContent()));
+            new SimpleStringProperty(cell.getValue().getMessage().getContent()));
         messageCol.setPrefWidth(350);
         
-        TableColumn<Message, String> dateCol = new TableColumn<>("Date");
-        dateCol.setCellValueFactory(cell -> 
-            new SimpleStringProperty(
-                cell.getValue().getSentAt().toLocalDate().toString() + " " + 
-                cell.getValue().getSentAt().toLocalTime().withNano(0).toString()));
+        TableColumn<MessageView, String> dateCol = new TableColumn<>("Date");
+        dateCol.setCellValueFactory(cell -> {
+            Message message = cell.getValue().getMessage();
+            return new SimpleStringProperty(
+                message.getSentAt().toLocalDate().toString() + " " + 
+                message.getSentAt().toLocalTime().withNano(0).toString());
+        });
         dateCol.setPrefWidth(150);
         
         messagesTable.getColumns().addAll(readCol, fromCol, messageCol, dateCol);
@@ -166,11 +161,63 @@ public class MessagePane extends VBox {
         this.alertCallback = callback;
     }
     
+    //Load the table the first time, then apply only what changed since
+    
     public void refresh() {
-        List<Message> received = service.getMessagesForUser(currentUsername).stream()
-            .filter(m -> m.getToUser().equals(currentUsername))
-            .collect(Collectors.toList());
-        messagesTable.setItems(FXCollections.observableArrayList(received));
+        LocalDateTime since = version;
+        loadRequest.submit(s -> s.getReceivedMessageChanges(currentUsername, since)).whenComplete((changes, error) -> {
+            if (error != null) {
+                if (!AsyncDormService.isCancellation(error)) {
+                    showAlert("Could not load messages: " + AsyncDormService.unwrap(error).getMessage());
+                }
+                return;
+            }
+            if (since == null) {
+                readProperties.clear();
+                messagesTable.setItems(FXCollections.observableArrayList(changes.getChanged()));
+            } else {
+                for (MessageView view : changes.getChanged()) {
+                    if (!service.getReadStates().isPending(view.getMessage().getId())) {
+                        readProperties.remove(view.getMessage().getId());
+                    }
+                }
+                changes.applyTo(messagesTable.getItems(), m -> m.getMessage().getId(), NEWEST_FIRST);
+            }
+            version = changes.getVersion();
+        });
+    }
+    
+    private SimpleBooleanProperty readProperty(Message message) {
+        SimpleBooleanProperty prop = readProperties.get(message.getId());
+        if (prop == null) {
+            prop = new SimpleBooleanProperty(message.isRead());
+            prop.addListener((obs, oldVal, newVal) -> service.getReadStates().set(message, newVal));
+            readProperties.put(message.getId(), prop);
+        }
+        return prop;
+    }
+    
+    private void handleMarkAllRead() {
+        service.supply(s -> {
+            service.getReadStates().flush();
+            return s.markAllMessagesRead(currentUsername);
+        }).whenComplete((count, error) -> {
+            if (error != null) {
+                showAlert("Could not update messages: " + AsyncDormService.unwrap(error).getMessage());
+            } else if (count > 0) {
+                refresh();
+            }
+        });
+    }
+    
+    //Stop listening for new messages once the pane is discarded
+    
+    public void dispose() {
+        if (subscription != null) {
+            subscription.cancel();
+            subscription = null;
+        }
+        loadRequest.cancel();
     }
     
     private void handleSend(Label studentNameLabel) {
@@ -180,20 +227,32 @@ public class MessagePane extends VBox {
             return;
         }
         
-        Optional<Student> student = service.findStudentByStudentId(studentId);
-        if (student.isEmpty()) {
-            showAlert("Student not found");
-            return;
-        }
-        
         // remove line breaks and trim
         String message = messageField.getText().trim().replaceAll("[\\r\\n]+", " ");
-        service.sendMessage(currentUsername, student.get().getUsername(), message);
-        messageField.clear();
-        studentIdField.clear();
-        studentNameLabel.setText("");
-        refresh();
-        showAlert("Message sent to " + student.get().getDisplayName());
+        
+        studentLookup.resolve(studentId)
+            .thenCompose(student -> {
+                if (student.isEmpty()) {
+                    return CompletableFuture.completedFuture(student);
+                }
+                return service.supply(s -> {
+                    s.sendMessage(currentUsername, student.get().getUsername(), message);
+                    return student;
+                });
+            })
+            .whenComplete((student, error) -> {
+                if (error != null) {
+                    showAlert("Failed to send: " + AsyncDormService.unwrap(error).getMessage());
+                } else if (student.isEmpty()) {
+                    showAlert("Student not found");
+                } else {
+                    messageField.clear();
+                    studentIdField.clear();
+                    studentNameLabel.setText("");
+                    refresh();
+                    showAlert("Message sent to " + student.get().getDisplayName());
+                }
+            });
     }
     
     private void showAlert(String message) {
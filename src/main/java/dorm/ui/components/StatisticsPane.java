@@ -0,0 +1,132 @@
+package dorm.ui.components;
+
+import dorm.dao.ApplicationStatistics;
+import dorm.model.College;
+import dorm.service.AsyncDormService;
+import javafx.geometry.Insets;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+
+//Admin dashboard panel: application counts by status, college, gender, residency and
+//sponsorship. Everything is counted by the database and briefly cached by the service, so
+//refreshing it alongside the application table is cheap.
+public class StatisticsPane extends VBox {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final AsyncDormService.Latest<ApplicationStatistics> loadRequest;
+    private final Label totalLabel;
+    private final Label updatedLabel;
+    private final FlowPane sections;
+    private Consumer<String> alertCallback;
+
+    public StatisticsPane(AsyncDormService service) {
+        this.loadRequest = service.latest();
+        this.totalLabel = new Label("Applications: -");
+        this.updatedLabel = new Label();
+        this.sections = new FlowPane(20, 20);
+
+        buildUI();
+    }
+
+    private void buildUI() {
+        totalLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14px;");
+        updatedLabel.setStyle("-fx-text-fill: gray;");
+
+        Button refreshButton = new Button("Refresh");
+        refreshButton.setOnAction(event -> refresh());
+
+        HBox header = new HBox(15, totalLabel, updatedLabel, refreshButton);
+
+        this.setSpacing(10);
+        this.setPadding(new Insets(10));
+        this.getChildren().addAll(header, sections);
+    }
+
+    public void setAlertCallback(Consumer<String> callback) {
+        this.alertCallback = callback;
+    }
+
+    //Reload the statistics in the background; a newer refresh supersedes a pending one
+
+    public void refresh() {
+        loadRequest.submit(s -> s.getApplicationStatistics()).whenComplete((stats, error) -> {
+            if (error != null) {
+                if (!AsyncDormService.isCancellation(error)) {
+                    showAlert("Could not load statistics: " + AsyncDormService.unwrap(error).getMessage());
+                }
+                return;
+            }
+            render(stats);
+        });
+    }
+
+    public void dispose() {
+        loadRequest.cancel();
+    }
+
+    private void render(ApplicationStatistics stats) {
+        totalLabel.setText("Applications: " + stats.getTotal());
+        updatedLabel.setText("as of " + stats.getComputedAt().format(TIME_FORMAT));
+        sections.getChildren().setAll(
+            section("Status", stats.getByStatus(), Enum::name, stats),
+            section("College", stats.getByCollege(), College::getAcronym, stats),
+            section("Gender", stats.getByGender(), Enum::name, stats),
+            section("Residency", stats.getByResidency(), Enum::name, stats),
+            section("Sponsorship", stats.getBySponsorship(), Enum::name, stats)
+        );
+    }
+
+    //One breakdown as rows of name, count and share of all applications
+
+    private <E> GridPane section(String title, Map<E, Integer> counts, Function<E, String> name,
+                                 ApplicationStatistics stats) {
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(4);
+        grid.setPadding(new Insets(10));
+        grid.setStyle("-fx-border-color: #ccc; -fx-border-radius: 5;");
+
+        Label heading = new Label(title);
+        heading.setStyle("-fx-font-weight: bold;");
+        grid.add(heading, 0, 0, 4, 1);
+
+        int row = 1;
+        for (Map.Entry<E, Integer> entry : counts.entrySet()) {
+            addRow(grid, row++, name.apply(entry.getKey()), entry.getValue(), stats.getTotal());
+        }
+        int notRecorded = stats.getNotRecorded(counts);
+        if (notRecorded > 0) {
+            addRow(grid, row, "Not recorded", notRecorded, stats.getTotal());
+        }
+        return grid;
+    }
+
+    private void addRow(GridPane grid, int row, String name, int count, int total) {
+        double share = total > 0 ? (double) count / total : 0;
+        ProgressBar bar = new ProgressBar(share);
+        bar.setPrefWidth(100);
+
+        grid.add(new Label(name), 0, row);
+        grid.add(new Label(String.valueOf(count)), 1, row);
+        grid.add(bar, 2, row);
+        grid.add(new Label(Math.round(share * 100) + "%"), 3, row);
+    }
+
+    private void showAlert(String message) {
+        if (alertCallback != null) {
+            alertCallback.accept(message);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package dorm.ui.components;
+
+import dorm.model.Student;
+import dorm.service.AsyncDormService;
+import dorm.util.TtlCache;
+import dorm.util.Validation;
+import javafx.animation.PauseTransition;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+
+//Resolves the student behind a student-ID text field as the user types. Nothing is looked up
+//until the text has the full UGR/XXXX/YY shape, keystrokes inside the debounce window collapse
+//into one lookup, and recent answers are served from a small cache without touching the database.
+public class StudentIdLookup {
+
+    private static final Duration DEBOUNCE = Duration.millis(250);
+    private static final int CACHE_SIZE = 64;
+    private static final long CACHE_TTL_MILLIS = 60_000;
+
+    private final AsyncDormService service;
+    private final Label resultLabel;
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE);
+    private final TtlCache<String, Optional<Student>> cache = new TtlCache<>(CACHE_SIZE, CACHE_TTL_MILLIS);
+    private final AsyncDormService.Latest<Optional<Student>> pending;
+
+    public StudentIdLookup(AsyncDormService service, TextField idField, Label resultLabel) {
+        this.service = service;
+        this.resultLabel = resultLabel;
+        this.pending = service.latest();
+
+        idField.textProperty().addListener((obs, oldVal, newVal) -> onTextChanged(newVal));
+    }
+
+    //Resolve an ID now (e.g. on Send), answering from the cache when possible
+
+    public CompletableFuture<Optional<Student>> resolve(String studentId) {
+        String id = Validation.normalizeAauId(studentId);
+        if (!Validation.isValidAauId(id)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        Optional<Student> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return service.supply(s -> s.findStudentByStudentId(id))
+            .thenApply(student -> {
+                cache.put(id, student);
+                return student;
+            });
+    }
+
+    //Drop a cached answer, e.g. after the student's record was edited
+
+    public void invalidate(String studentId) {
+        cache.invalidate(Validation.normalizeAauId(studentId));
+    }
+
+    private void onTextChanged(String text) {
+        debounce.stop();
+        pending.cancel();
+
+        String id = Validation.normalizeAauId(text);
+        if (id == null || id.isEmpty() || !Validation.isValidAauId(id)) {
+            // Still typing (or cleared) - nothing worth asking the database yet
+            resultLabel.setText("");
+            return;
+        }
+
+        Optional<Student> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            show(cached);
+            return;
+        }
+
+        debounce.setOnFinished(e -> lookup(id));
+        debounce.playFromStart();
+    }
+
+    private void lookup(String id) {
+        pending.submit(s -> s.findStudentByStudentId(id)).whenComplete((student, error) -> {
+            if (error != null) {
+                if (!AsyncDormService.isCancellation(error)) {
+                    resultLabel.setText("Lookup failed");
+                    resultLabel.setStyle("-fx-text-fill: red;");
+                }
+                return;
+            }
+            cache.put(id, student);
+            show(student);
+        });
+    }
+
+    private void show(Optional<Student> student) {
+        if (student.isPresent()) {
+            resultLabel.setText("Student: " + student.get().getDisplayName());
+            resultLabel.setStyle("-fx-text-fill: green;");
+        } else {
+            resultLabel.setText("Student not found");
+            resultLabel.setStyle("-fx-text-fill: red;");
+        }
+    }
+}
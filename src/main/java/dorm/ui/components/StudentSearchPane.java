@@ -1,20 +1,25 @@
 package dorm.ui.components;
 
 import dorm.model.*;
-import dorm.service.DatabaseDormService;
+import dorm.service.AsyncDormService;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 
 
 public class StudentSearchPane extends VBox {
     
-    private final DatabaseDormService service;
+    private static final DateTimeFormatter HISTORY_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    
+    private final AsyncDormService service;
     private final TextField studentIdField;
     private final TextField nameField;
     private final ComboBox<Gender> genderBox;
@@ -32,7 +37,20 @@ public class StudentSearchPane extends VBox {
     private Consumer<String> alertCallback;
     private Runnable onSaveCallback;
     
-    public StudentSearchPane(DatabaseDormService service) {
+    // Everything the search shows, loaded together on a worker thread
+    private static final class SearchResult {
+        final Student student;
+        final DormApplication application;
+        final List<StatusEvent> history;
+        
+        SearchResult(Student student, DormApplication application, List<StatusEvent> history) {
+            this.student = student;
+            this.application = application;
+            this.history = history;
+        }
+    }
+    
+    public StudentSearchPane(AsyncDormService service) {
         this.service = service;
         
         // Initialize controls
@@ -125,16 +143,31 @@ public class StudentSearchPane extends VBox {
             return;
         }
         
-        Optional<Student> result = service.findStudentByStudentId(id);
-        if (result.isEmpty()) {
-            showAlert("Student not found");
-            foundStudent = null;
-            clearFields();
-            setFieldsEnabled(false);
-            return;
-        }
-        
-        Student s = result.get();
+        service.supply(svc -> {
+            Optional<Student> found = svc.findStudentByStudentId(id);
+            if (found.isEmpty()) {
+                return Optional.<SearchResult>empty();
+            }
+            Student student = found.get();
+            Optional<DormApplication> app = svc.getApplicationForStudent(student);
+            List<StatusEvent> history = app.isPresent() ? svc.getStatusHistory(app.get()) : Collections.emptyList();
+            return Optional.of(new SearchResult(student, app.orElse(null), history));
+        }).whenComplete((result, error) -> {
+            if (error != null) {
+                showAlert("Search failed: " + AsyncDormService.unwrap(error).getMessage());
+            } else if (result.isEmpty()) {
+                showAlert("Student not found");
+                foundStudent = null;
+                clearFields();
+                setFieldsEnabled(false);
+            } else {
+                showResult(result.get());
+            }
+        });
+    }
+    
+    private void showResult(SearchResult result) {
+        Student s = result.student;
         foundStudent = s;
         
         // Populate fields
@@ -147,11 +180,14 @@ public class StudentSearchPane extends VBox {
         woredaField.setText(safe(s.getWoreda()));
         buildingField.setText(s.getAssignedBuilding() != null ? s.getAssignedBuilding() : "");
         
-        Optional<DormApplication> app = service.getApplicationForStudent(s);
-        if (app.isPresent()) {
-            statusLabel.setText(app.get().getStatus().name());
-            String history = app.get().getResponseHistory();
-            responseHistoryLabel.setText(history != null && !history.isBlank() ? history.replace(";", "\n") : "-");
+        if (result.application != null) {
+            statusLabel.setText(result.application.getStatus().name());
+            StringBuilder lines = new StringBuilder();
+            for (StatusEvent event : result.history) {
+                if (lines.length() > 0) lines.append("\n");
+                lines.append(event.getChangedAt().toLocalDate().format(HISTORY_DATE)).append("_").append(event.getStatus().name());
+            }
+            responseHistoryLabel.setText(lines.length() > 0 ? lines.toString() : "-");
         } else {
             statusLabel.setText("No application");
             responseHistoryLabel.setText("-");
@@ -170,12 +206,20 @@ public class StudentSearchPane extends VBox {
         foundStudent.setWoreda(woredaField.getText().trim());
         foundStudent.setAssignedBuilding(buildingField.getText().trim());
         
-        service.updateStudent(foundStudent);
-        showAlert("Student updated");
-        
-        if (onSaveCallback != null) {
-            onSaveCallback.run();
-        }
+        Student student = foundStudent;
+        saveButton.setDisable(true);
+        service.run(svc -> svc.updateStudent(student)).whenComplete((ignored, error) -> {
+            saveButton.setDisable(false);
+            if (error != null) {
+                showAlert("Update failed: " + AsyncDormService.unwrap(error).getMessage());
+                return;
+            }
+            showAlert("Student updated");
+            
+            if (onSaveCallback != null) {
+                onSaveCallback.run();
+            }
+        });
     }
     
     
@@ -3,8 +3,10 @@ package dorm.util;
 import dorm.dao.DataAccessException;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -14,6 +16,7 @@ import java.util.logging.Logger;
 public final class CsvHelper {
     
     private static final String DATA_DIR = "data";
+    private static final int BUFFER_SIZE = 64 * 1024;
     private static final Logger LOGGER = Logger.getLogger(CsvHelper.class.getName());
     
     private CsvHelper() {}
@@ -62,19 +65,13 @@ public final class CsvHelper {
             return records;
         }
         
-        try (BufferedReader reader = Files.newBufferedReader(path)) {
-            String line;
-            boolean isFirst = true;
-            
-            while ((line = reader.readLine()) != null) {
-                if (isFirst && hasHeader) {
-                    isFirst = false;
-                    continue;
-                }
-                isFirst = false;
-                
-                if (!line.trim().isEmpty()) {
-                    records.add(parseCsvLine(line));
+        try (CsvReader reader = openReader(path)) {
+            if (hasHeader) {
+                reader.next();
+            }
+            while (reader.next()) {
+                if (!reader.isBlank()) {
+                    records.add(reader.toArray());
                 }
             }
         } catch (IOException e) {
@@ -100,19 +97,13 @@ public final class CsvHelper {
             return records;
         }
         
-        try (BufferedReader reader = Files.newBufferedReader(path)) {
-            String line;
-            boolean isFirst = true;
-            
-            while ((line = reader.readLine()) != null) {
-                if (isFirst && hasHeader) {
-                    isFirst = false;
-                    continue;
-                }
-                isFirst = false;
-                
-                if (!line.trim().isEmpty()) {
-                    records.add(parseCsvLine(line));
+        try (CsvReader reader = openReader(path)) {
+            if (hasHeader) {
+                reader.next();
+            }
+            while (reader.next()) {
+                if (!reader.isBlank()) {
+                    records.add(reader.toArray());
                 }
             }
         } catch (IOException e) {
@@ -235,7 +226,7 @@ public final class CsvHelper {
 
     public static String[] parseCsvLine(String line) {
         List<String> values = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
+        StringBuilder current = new StringBuilder(Math.min(line.length(), 64));
         boolean inQuotes = false;
         
         for (int i = 0; i < line.length(); i++) {
@@ -258,7 +249,7 @@ public final class CsvHelper {
                     inQuotes = true;
                 } else if (c == ',') {
                     values.add(current.toString());
-                    current = new StringBuilder();
+                    current.setLength(0);
                 } else {
                     current.append(c);
                 }
@@ -295,13 +286,296 @@ public final class CsvHelper {
         }
         
         // If value contains comma, quote, or newline, wrap in quotes
-        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+        if (needsQuotes(value)) {
             return "\"" + value.replace("\"", "\"\"") + "\"";
         }
         
         return value;
     }
     
+    //One pass over the value instead of a contains() scan per special character
+    
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    //Streaming reader over a CSV file; see CsvReader
+
+    public static CsvReader openReader(Path path) throws IOException {
+        return new CsvReader(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+    }
+
+    //Streaming writer to a CSV file (created or truncated); see CsvWriter
+
+    public static CsvWriter openWriter(Path path) throws IOException {
+        return new CsvWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Streaming CSV reader: one record at a time, in constant memory whatever the file size.
+     * Quoted fields may contain commas, doubled quotes and line breaks. Characters go straight
+     * from a fixed read buffer into one reused record buffer; a String is only created when a
+     * field is asked for. A leading byte-order mark is skipped.
+     *
+     * <pre>
+     * try (CsvReader reader = CsvHelper.openReader(path)) {
+     *     while (reader.next()) {
+     *         String id = reader.get(0);
+     *     }
+     * }
+     * </pre>
+     */
+    public static final class CsvReader implements Closeable {
+        
+        private final java.io.Reader in;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+        private int limit;
+        
+        // Current record: field i is record[ends[i - 1] .. ends[i])
+        private char[] record = new char[256];
+        private int length;
+        private int[] ends = new int[16];
+        private int fieldCount;
+        
+        private long line = 1;          // physical line the reader is on
+        private long recordLine;        // physical line the current record started on
+        private boolean started;
+        
+        public CsvReader(java.io.Reader in) {
+            this.in = in;
+        }
+        
+        //Advance to the next record; false at end of input. Empty lines are skipped.
+        
+        public boolean next() throws IOException {
+            length = 0;
+            fieldCount = 0;
+            
+            int c = read();
+            if (!started) {
+                started = true;
+                if (c == '\uFEFF') {
+                    c = read();
+                }
+            }
+            while (c == '\n' || c == '\r') {
+                if (c == '\n') {
+                    line++;
+                }
+                c = read();
+            }
+            if (c == -1) {
+                return false;
+            }
+            recordLine = line;
+            
+            boolean inQuotes = false;
+            while (true) {
+                if (inQuotes) {
+                    if (c == -1) {
+                        break;      // unterminated quote: keep what was read
+                    }
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            read();
+                            append('"');
+                        } else {
+                            inQuotes = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        append((char) c);
+                    }
+                } else if (c == -1 || c == '\n') {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    break;
+                } else if (c == '\r') {
+                    // Drop the CR of a CRLF; keep a stray one
+                    int n = peek();
+                    if (n != '\n' && n != -1) {
+                        append('\r');
+                    }
+                } else if (c == '"') {
+                    inQuotes = true;
+                } else if (c == ',') {
+                    endField();
+                } else {
+                    append((char) c);
+                }
+                c = read();
+            }
+            endField();
+            return true;
+        }
+        
+        public int getFieldCount() {
+            return fieldCount;
+        }
+        
+        //Field i of the current record
+        
+        public String get(int index) {
+            if (index < 0 || index >= fieldCount) {
+                throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+            }
+            int start = index == 0 ? 0 : ends[index - 1];
+            return new String(record, start, ends[index] - start);
+        }
+        
+        //True if the record has no content (e.g. a line of only commas or spaces)
+        
+        public boolean isBlank() {
+            for (int i = 0; i < length; i++) {
+                if (!Character.isWhitespace(record[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        public String[] toArray() {
+            String[] values = new String[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                values[i] = get(i);
+            }
+            return values;
+        }
+        
+        //1-based line the current record starts on (a record can span several lines)
+        
+        public long getLineNumber() {
+            return recordLine;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+        
+        private int read() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++];
+        }
+        
+        private int peek() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position];
+        }
+        
+        private boolean fill() throws IOException {
+            int n = in.read(buffer, 0, buffer.length);
+            if (n <= 0) {
+                return false;
+            }
+            position = 0;
+            limit = n;
+            return true;
+        }
+        
+        private void append(char c) {
+            if (length == record.length) {
+                record = Arrays.copyOf(record, record.length * 2);
+            }
+            record[length++] = c;
+        }
+        
+        private void endField() {
+            if (fieldCount == ends.length) {
+                ends = Arrays.copyOf(ends, ends.length * 2);
+            }
+            ends[fieldCount++] = length;
+        }
+    }
+    
+    /**
+     * Streaming CSV writer: fields are escaped straight into the underlying (buffered) writer,
+     * with no per-record line string. Records end with '\n'.
+     *
+     * <pre>
+     * try (CsvWriter writer = CsvHelper.openWriter(path)) {
+     *     writer.record("Name", "Student ID");
+     *     writer.field(name).field(id).endRecord();
+     * }
+     * </pre>
+     */
+    public static final class CsvWriter implements Closeable, Flushable {
+        
+        private final java.io.Writer out;
+        private boolean firstField = true;
+        
+        public CsvWriter(java.io.Writer out) {
+            this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, BUFFER_SIZE);
+        }
+        
+        //Append one field to the current record (null is written as empty)
+        
+        public CsvWriter field(String value) throws IOException {
+            if (!firstField) {
+                out.write(',');
+            }
+            firstField = false;
+            if (value == null || value.isEmpty()) {
+                return this;
+            }
+            if (!needsQuotes(value)) {
+                out.write(value);
+                return this;
+            }
+            
+            out.write('"');
+            int start = 0;
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) == '"') {
+                    out.write(value, start, i - start + 1);
+                    out.write('"');
+                    start = i + 1;
+                }
+            }
+            out.write(value, start, value.length() - start);
+            out.write('"');
+            return this;
+        }
+        
+        public void endRecord() throws IOException {
+            out.write('\n');
+            firstField = true;
+        }
+        
+        //Write a whole record
+        
+        public void record(String... values) throws IOException {
+            for (String value : values) {
+                field(value);
+            }
+            endRecord();
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+    
     /**
      * Null-safe string value
      */
@@ -0,0 +1,116 @@
+package dorm.util;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+
+//Salted, deliberately slow password hashing (PBKDF2 with HMAC-SHA256). Hashes are stored as
+//"pbkdf2-sha256$<iterations>$<salt>$<hash>", so the work factor can be raised later: verify
+//reads the iterations from the stored value and needsRehash spots hashes made with fewer.
+//Anything without that prefix is a legacy plaintext password, still accepted until the
+//owner next logs in and it is replaced. All comparisons are constant-time.
+public final class PasswordHasher {
+
+    public static final int DEFAULT_ITERATIONS = 100_000;
+    public static final int MIN_ITERATIONS = 10_000;
+
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+    private final String dummyHash;
+
+    public PasswordHasher() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    public PasswordHasher(int iterations) {
+        Validation.require(iterations >= MIN_ITERATIONS, "Password hash iterations must be at least " + MIN_ITERATIONS);
+        this.iterations = iterations;
+        // Verified against for unknown usernames, so a miss costs as much as a wrong password
+        this.dummyHash = hash("not a password");
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    //Hash a new password with a fresh salt at the current work factor
+
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(hash);
+    }
+
+    //True if password matches stored, which is either a hash from this class or legacy plaintext
+
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[0]);
+            byte[] salt = Base64.getDecoder().decode(parts[1]);
+            byte[] expected = Base64.getDecoder().decode(parts[2]);
+            return MessageDigest.isEqual(expected, pbkdf2(password, salt, storedIterations));
+        } catch (IllegalArgumentException e) {
+            return false;   // malformed value; treat as no match
+        }
+    }
+
+    //Spend the same time as a real check without a stored value (login for an unknown username)
+
+    public void verifyDummy(String password) {
+        verify(password == null ? "" : password, dummyHash);
+    }
+
+    //Plaintext, or hashed with a lower work factor than the current one
+
+    public boolean needsRehash(String stored) {
+        if (!isHashed(stored)) {
+            return true;
+        }
+        String rest = stored.substring(PREFIX.length());
+        int end = rest.indexOf('$');
+        try {
+            return end < 0 || Integer.parseInt(rest.substring(0, end)) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            // PBKDF2WithHmacSHA256 is required of every Java platform
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}